@@ -0,0 +1,140 @@
+package api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * A fixed mid-game state of a field, used to benchmark single steps on
+ * comparable boards. The snapshot knows the mines (from the layout of the
+ * field), so it can uncover a contiguous region of safe cells around (0,0)
+ * without playing a game. The region grows in a random (but seeded) order
+ * until the given share of safe cells is uncovered.
+ * 
+ * @author tthielen
+ */
+public class BoardSnapshot {
+  private FieldLayout layout; // the mines of the field
+  private int[] uncovered; // the indices of all uncovered cells (in order of uncovering)
+
+  /**
+   * Creates a snapshot of the given field.
+   * 
+   * @param path  the path to the field file
+   * @param share which share of the safe cells is uncovered (between 0 and 1)
+   * @param seed  the seed of the order the region grows in
+   * @return the snapshot
+   * @throws IOException if the field file can't be read
+   */
+  public static BoardSnapshot create(String path, double share, long seed) throws IOException {
+    BoardSnapshot snapshot = new BoardSnapshot();
+    snapshot.layout = FieldLayout.read(path);
+    snapshot.uncoverRegion(share, new Random(seed));
+    return snapshot;
+  }
+
+  /**
+   * Uncovers a random contiguous region of safe cells around (0,0).
+   * 
+   * @param share  which share of the safe cells is uncovered
+   * @param random the random int generator
+   */
+  private void uncoverRegion(double share, Random random) {
+    int safeCells = layout.size() - layout.getNumOfMines();
+    int target = Math.max(1, (int) (share * safeCells));
+    NeighbourTable neighbourTable = NeighbourTable.forSize(layout.getNumOfCols(), layout.getNumOfRows());
+    boolean[] reached = new boolean[layout.size()];
+    ArrayList<Integer> open = new ArrayList<Integer>();
+    ArrayList<Integer> region = new ArrayList<Integer>();
+    open.add(0);
+    reached[0] = true;
+    while (region.size() < target && !open.isEmpty()) {
+      int index = open.remove(random.nextInt(open.size()));
+      region.add(index);
+      for (int k = neighbourTable.start(index); k < neighbourTable.end(index); k++) {
+        int neighbour = neighbourTable.getNeighbour(k);
+        if (!reached[neighbour] && !layout.isMine(neighbour)) {
+          reached[neighbour] = true;
+          open.add(neighbour);
+        }
+      }
+    }
+    uncovered = new int[region.size()];
+    for (int i = 0; i < uncovered.length; i++) {
+      uncovered[i] = region.get(i);
+    }
+  }
+
+  /**
+   * Builds a fresh inner representation of the field in the state of the
+   * snapshot.
+   * 
+   * @return the field of cells
+   */
+  public FieldOfCells toFieldOfCells() {
+    FieldOfCells cells = new FieldOfCells(layout.getNumOfCols(), layout.getNumOfRows());
+    NeighbourTable neighbourTable = NeighbourTable.forSize(layout.getNumOfCols(), layout.getNumOfRows());
+    for (int index : uncovered) {
+      int clue = 0;
+      for (int k = neighbourTable.start(index); k < neighbourTable.end(index); k++) {
+        if (layout.isMine(neighbourTable.getNeighbour(k))) {
+          clue++;
+        }
+      }
+      cells.uncoverCell(index % layout.getNumOfCols(), index / layout.getNumOfCols(), clue);
+    }
+    return cells;
+  }
+
+  /**
+   * Reads a fresh (entirely covered) field.
+   * 
+   * @return the field
+   */
+  public MSField newField() {
+    return new MSField(layout.getPath());
+  }
+
+  /**
+   * Starts a fresh (entirely covered) game on the fast oracle.
+   * 
+   * @return the game
+   */
+  public LayoutGame newGame() {
+    return layout.newGame();
+  }
+
+  /**
+   * Uncovers the cells of the snapshot on the given game.
+   * 
+   * @param game the game
+   * @return the game in the state of the snapshot
+   */
+  public <T extends MSGame> T atSnapshot(T game) {
+    replay(game);
+    return game;
+  }
+
+  /**
+   * Uncovers the cells of the snapshot on the given game.
+   * 
+   * @param game the game
+   * @return the sum of all clues (so the calls can't be optimized away)
+   */
+  public int replay(MSGame game) {
+    int sum = 0;
+    for (int index : uncovered) {
+      sum += game.uncover(index % layout.getNumOfCols(), index / layout.getNumOfCols());
+    }
+    return sum;
+  }
+
+  /**
+   * Returns how many cells the snapshot uncovers.
+   * 
+   * @return the amount of uncovered cells
+   */
+  public int getNumOfUncovered() {
+    return uncovered.length;
+  }
+}
@@ -0,0 +1,80 @@
+package api;
+
+import java.util.Random;
+
+/**
+ * Checks that the fast oracle (LayoutGame) is a drop-in replacement for the
+ * original MSField: every field has to look the same on both, and the same
+ * seeded agent has to win resp. lose the same games on both, with and without
+ * being told the number of mines.
+ * 
+ * @author tthielen
+ */
+public class OracleEquivalence {
+
+  /**
+   * Main method which needs to be run to conduct the check.
+   * 
+   * @param args
+   */
+  public static void main(String[] args) {
+    // How many seeded games are played per field and configuration (CHANGE VALUE)
+    int iterations = 20;
+    // The solvers the cells are proven with (CHANGE VALUE)
+    SolverBackend backend = new PropagationBackend();
+
+    int differences = 0;
+    for (String name : Main.fields) {
+      String path = "fields/" + name;
+      FieldLayout layout = FieldLayout.load(path);
+      if (!new MSField(path).toString().equals(layout.newGame().toString())) {
+        System.out.println("Error: " + name + " looks different on the two oracles!");
+        differences++;
+      }
+      for (boolean knownNumOfMines : new boolean[] { false, true }) {
+        int wonOnField = 0;
+        int wonOnLayout = 0;
+        for (int i = 0; i < iterations; i++) {
+          boolean onField = newAgent(new MSFieldGame(new MSField(path)), i, backend, knownNumOfMines, layout).solve();
+          boolean onLayout = newAgent(layout.newGame(), i, backend, knownNumOfMines, layout).solve();
+          if (onField != onLayout) {
+            System.out.println("Error: Game " + i + " of " + name + " (" + (knownNumOfMines ? "known" : "unknown")
+                + " number of mines) differs on the two oracles!");
+            differences++;
+          }
+          wonOnField += onField ? 1 : 0;
+          wonOnLayout += onLayout ? 1 : 0;
+        }
+        System.out.println(name + (knownNumOfMines ? " (known number of mines)" : "") + ": " + wonOnField + "/"
+            + iterations + " won on MSField, " + wonOnLayout + "/" + iterations + " won on LayoutGame");
+      }
+    }
+
+    System.out.println("\n" + differences + " difference(s) between the oracles.");
+    if (differences > 0) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Creates the agent which plays the given game on either oracle.
+   * 
+   * @param game            the game
+   * @param seed            the seed of the agent's random decisions
+   * @param backend         the solvers the cells are proven with
+   * @param knownNumOfMines whether the agent is told how many mines the field
+   *                        has
+   * @param layout          the layout of the field (which tells the number of
+   *                        mines)
+   * @return the agent
+   */
+  private static SatMSAgent newAgent(MSGame game, long seed, SolverBackend backend, boolean knownNumOfMines,
+      FieldLayout layout) {
+    SatMSAgent agent = new SatMSAgent(game, new Random(seed));
+    agent.setSolverBackend(backend);
+    if (knownNumOfMines) {
+      agent.setNumOfMines(layout.getNumOfMines());
+    }
+    return agent;
+  }
+}
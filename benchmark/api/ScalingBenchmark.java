@@ -0,0 +1,101 @@
+package api;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.util.Random;
+
+/**
+ * Measures how the SatMSAgent scales with the size of the board, by playing
+ * games on generated layouts (with the same density of mines) of growing size
+ * and displaying the average duration of a step and of a game per size. The
+ * metrics of the steps show which phase of a step dominates on which size.
+ * 
+ * @author tthielen
+ */
+public class ScalingBenchmark {
+
+  // the sizes of the generated boards (columns, rows) and how many games are
+  // played on each of them
+  private static final int[][] sizes = { { 30, 16, 20 }, { 50, 50, 20 }, { 100, 100, 10 }, { 200, 200, 5 },
+      { 500, 500, 2 }, { 1000, 1000, 1 } };
+
+  // the phases of a step which are displayed per size
+  private static final int[] phases = { StepMetrics.RULE_NANOS, StepMetrics.PROOF_NANOS, StepMetrics.GUESS_NANOS,
+      StepMetrics.UNCOVER_NANOS };
+
+  /**
+   * Main method which needs to be run to conduct the benchmark.
+   * 
+   * @param args
+   * @throws IOException if the metrics can't be written
+   */
+  public static void main(String[] args) throws IOException {
+    // The density of mines and the seed of the boards and games (CHANGE VALUES)
+    double density = 0.15;
+    long seed = 42;
+    // The file the metrics of all steps are written to as CSV (null = none)
+    // (CHANGE VALUE)
+    String metricsFile = null;
+
+    BoardGenerator generator = new BoardGenerator(seed);
+    Random games = new Random(seed);
+    DecimalFormat df = new DecimalFormat("#,##0.###");
+    System.out.println("Density: " + density);
+    System.out.println(String.format("%-12s%8s%8s%12s%12s%14s", "Size", "Games", "Won", "Ø steps", "ms/step",
+        "ms/game"));
+
+    // warm up on the smallest size, so the first row isn't distorted by the JIT
+    for (int i = 0; i < 50; i++) {
+      new SatMSAgent(generator.generate(sizes[0][0], sizes[0][1], density).newGame(), new Random(i)).solve();
+    }
+
+    long[][] phaseNanos = new long[sizes.length][phases.length];
+    long[] allSteps = new long[sizes.length];
+    try (Writer metricsWriter = metricsFile != null ? new FileWriter(metricsFile) : null) {
+      if (metricsWriter != null) {
+        metricsWriter.write("size,game," + String.join(",", StepMetrics.COLUMNS) + "\n");
+      }
+      for (int s = 0; s < sizes.length; s++) {
+        int[] size = sizes[s];
+        int won = 0;
+        long steps = 0;
+        long duration = 0;
+        for (int i = 0; i < size[2]; i++) {
+          FieldLayout layout = generator.generate(size[0], size[1], density);
+          SatMSAgent agent = new SatMSAgent(layout.newGame(), new Random(games.nextLong()));
+          agent.activateMetrics();
+          long start = System.nanoTime();
+          if (agent.solve()) {
+            won++;
+          }
+          duration += System.nanoTime() - start;
+          steps += agent.getSteps();
+          for (int p = 0; p < phases.length; p++) {
+            phaseNanos[s][p] += agent.getMetrics().getTotal(phases[p]);
+          }
+          if (metricsWriter != null) {
+            for (StepMetrics step : agent.getMetrics().getSteps()) {
+              metricsWriter.write(size[0] + "x" + size[1] + "," + i + "," + step.toCsv() + "\n");
+            }
+          }
+        }
+        allSteps[s] = steps;
+        double ms = duration / 1000000.0;
+        System.out.println(String.format("%-12s%8d%8d%12s%12s%14s", size[0] + "x" + size[1], size[2], won,
+            df.format((double) steps / size[2]), df.format(ms / steps), df.format(ms / size[2])));
+      }
+    }
+
+    System.out.println("\nPhases (us/step):");
+    System.out.println(String.format("%-12s%12s%12s%12s%12s", "Size", "rules", "proofs", "guesses", "uncover"));
+    for (int s = 0; s < sizes.length; s++) {
+      String row = String.format("%-12s", sizes[s][0] + "x" + sizes[s][1]);
+      for (int p = 0; p < phases.length; p++) {
+        row += String.format("%12s", df.format(phaseNanos[s][p] / 1000.0 / allSteps[s]));
+      }
+      System.out.println(row);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package api;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * Benchmarks the hot paths of the solver on fixed mid-game snapshots of one
+ * field per tier, so the results of different versions are comparable.
+ * 
+ * Every benchmark is first warmed up and then measured for a fixed time. The
+ * state every invocation needs (e.g. a fresh field of cells, as proving marks
+ * mines) is built before the timer starts, and all results are consumed, so
+ * the JIT can't remove the measured calls.
+ * 
+ * @author tthielen
+ */
+public class SolverBenchmark {
+
+  private static final String[] tiers = { "baby9-7x7-10.txt", "anfaenger1-9x9-10.txt",
+      "fortgeschrittene1-16x16-40.txt", "profi1-30x16-99.txt" };
+
+  private static final SolverBackend[] backends = { new Sat4jBackend(new NativeCardinalityEncoding()),
+      new PropagationBackend() };
+
+  private static final long WARMUP_NANOS = 1000000000L; // how long every benchmark is warmed up
+  private static final long MEASURE_NANOS = 2000000000L; // how long every benchmark is measured
+
+  private static int sink; // consumes the results
+
+  /**
+   * Main method which needs to be run to conduct the benchmarks.
+   * 
+   * @param args
+   * @throws IOException if a field file can't be read
+   */
+  public static void main(String[] args) throws IOException {
+    // Which share of the safe cells the snapshots uncover and their seed (CHANGE
+    // VALUES)
+    double share = 0.4;
+    long seed = 42;
+
+    for (String tier : tiers) {
+      System.out.println("\nField " + tier + ":");
+      BoardSnapshot snapshot = BoardSnapshot.create("fields/" + tier, share, seed);
+      FieldOfCells cells = snapshot.toFieldOfCells();
+
+      measure("cnfGenerator", () -> agentAt(snapshot, seed), agent -> agent.cnfGenerator().size());
+      measure("findSafeCells (sat4j, no rules)", () -> {
+        SatMSAgent agent = agentAt(snapshot, seed);
+        agent.deactivateRuleDeduction();
+        return agent;
+      }, agent -> agent.findSafeCells().size());
+      measure("findSafeCells (propagation, no rules)", () -> {
+        SatMSAgent agent = agentAt(snapshot, seed);
+        agent.deactivateRuleDeduction();
+        agent.setSolverBackend(new PropagationBackend());
+        return agent;
+      }, agent -> agent.findSafeCells().size());
+      measure("findSafeCells (rules + sat4j)", () -> agentAt(snapshot, seed), agent -> agent.findSafeCells().size());
+      ArrayList<Cell> relevantCells = cells.getAllRelevantCells();
+      for (SolverBackend backend : backends) {
+        KnowledgeBase knowledgeBase = knowledgeBaseAt(cells, backend);
+        measure(backend.getName() + " (" + 2 * relevantCells.size() + " queries)", () -> knowledgeBase,
+            kb -> prove(kb, relevantCells));
+      }
+      measure("FieldOfCells.getClueCells", () -> cells, c -> c.getClueCells().size());
+      measure("FieldOfCells.getAllRelevantCells", () -> cells, c -> c.getAllRelevantCells().size());
+      measure("MSField.uncover (" + snapshot.getNumOfUncovered() + " cells)",
+          () -> new MSFieldGame(snapshot.newField()), game -> snapshot.replay(game));
+      MSGame fieldAtSnapshot = snapshot.atSnapshot(new MSFieldGame(snapshot.newField()));
+      measure("MSField.solved", () -> fieldAtSnapshot, game -> game.solved() ? 1 : 0);
+      measure("LayoutGame.uncover (" + snapshot.getNumOfUncovered() + " cells)", () -> snapshot.newGame(),
+          game -> snapshot.replay(game));
+      MSGame gameAtSnapshot = snapshot.atSnapshot(snapshot.newGame());
+      measure("LayoutGame.solved", () -> gameAtSnapshot, game -> game.solved() ? 1 : 0);
+      Random games = new Random(seed);
+      measure("solve", () -> new SatMSAgent(snapshot.newField(), new Random(games.nextLong())),
+          agent -> agent.solve() ? 1 : 0);
+    }
+    System.out.println("\n(" + sink + ")");
+  }
+
+  /**
+   * Creates an agent in the state of the given snapshot.
+   * 
+   * @param snapshot the snapshot
+   * @param seed     the seed of the agent's random decisions
+   * @return the agent
+   */
+  private static SatMSAgent agentAt(BoardSnapshot snapshot, long seed) {
+    return new SatMSAgent(new MSFieldGame(snapshot.newField()), new Random(seed), snapshot.toFieldOfCells());
+  }
+
+  /**
+   * Loads a knowledge base with all clues of the given field of cells.
+   * 
+   * @param cells   the field of cells
+   * @param backend the backend providing the solver
+   * @return the knowledge base
+   */
+  private static KnowledgeBase knowledgeBaseAt(FieldOfCells cells, SolverBackend backend) {
+    KnowledgeBase knowledgeBase = new KnowledgeBase(cells.size(), backend);
+    CompactBoard board = cells.getBoard();
+    try {
+      for (int i = 0; i < board.size(); i++) {
+        if (board.isUncovered(i)) {
+          knowledgeBase.addClue(cells.getCell(i), board.getNeighbourTable());
+        }
+      }
+    } catch (ContradictionException e) {
+      System.out.println("Error: The clues contradict each other!");
+    }
+    return knowledgeBase;
+  }
+
+  /**
+   * Proves whether the given cells are safe or mines (without adding the
+   * results, so the knowledge base can be reused).
+   * 
+   * @param knowledgeBase the knowledge base
+   * @param relevantCells the cells to prove
+   * @return how many cells are proven to be safe or mines
+   */
+  private static int prove(KnowledgeBase knowledgeBase, ArrayList<Cell> relevantCells) {
+    int proven = 0;
+    try {
+      for (Cell c : relevantCells) {
+        if (knowledgeBase.isSafe(c) || knowledgeBase.isMine(c)) {
+          proven++;
+        }
+      }
+    } catch (TimeoutException e) {
+      System.out.println("Timeout occured while testing for satisfiability!");
+    }
+    return proven;
+  }
+
+  /**
+   * Warms up and measures a benchmark and displays the average duration of an
+   * invocation.
+   * 
+   * @param name      the name of the benchmark
+   * @param setup     builds the state of an invocation (not measured)
+   * @param operation the measured invocation
+   */
+  private static <T> void measure(String name, Supplier<T> setup, Function<T, Object> operation) {
+    run(setup, operation, WARMUP_NANOS);
+    double[] result = run(setup, operation, MEASURE_NANOS);
+    long invocations = (long) result[0];
+    double mean = result[1];
+    double variance = result[2] / invocations;
+    DecimalFormat df = new DecimalFormat("#,##0.0");
+    System.out.println(String.format("%-40s", name) + df.format(mean / 1000) + " us/op (+- "
+        + df.format(Math.sqrt(variance) / 1000) + " us, " + invocations + " ops)");
+  }
+
+  /**
+   * Invokes the benchmark for the given time.
+   * 
+   * @param setup     builds the state of an invocation (not measured)
+   * @param operation the measured invocation
+   * @param duration  how long the benchmark is invoked (in ns)
+   * @return the amount of invocations, the mean of their durations and the sum of
+   *         the squared deviations from the mean (in ns)
+   */
+  private static <T> double[] run(Supplier<T> setup, Function<T, Object> operation, long duration) {
+    long invocations = 0;
+    double mean = 0;
+    double squares = 0;
+    long end = System.nanoTime() + duration;
+    while (System.nanoTime() < end) {
+      T state = setup.get();
+      long start = System.nanoTime();
+      Object result = operation.apply(state);
+      long time = System.nanoTime() - start;
+      sink += result.hashCode();
+      // Welford's update, which neither overflows nor cancels out
+      invocations++;
+      double delta = time - mean;
+      mean += delta / invocations;
+      squares += delta * (time - mean);
+    }
+    return new double[] { invocations, mean, squares };
+  }
+}
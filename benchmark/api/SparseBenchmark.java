@@ -0,0 +1,57 @@
+package api;
+
+import java.text.DecimalFormat;
+import java.util.Random;
+
+/**
+ * Plays the SparseMSAgent on a lazily generated 100000x100000 board for a
+ * growing amount of steps and displays the duration of a step, the explored
+ * chunks and the used heap, which should grow with the explored area only.
+ * 
+ * @author tthielen
+ */
+public class SparseBenchmark {
+
+  // after how many steps the agent gives up
+  private static final long[] stepLimits = { 10000, 100000, 1000000 };
+
+  /**
+   * Main method which needs to be run to conduct the benchmark.
+   * 
+   * @param args
+   */
+  public static void main(String[] args) {
+    // The size of the board, the density of mines and the seed (CHANGE VALUES)
+    int size = 100000;
+    double density = 0.15;
+    long seed = 42;
+
+    DecimalFormat df = new DecimalFormat("#,##0.###");
+    System.out.println("Board: " + size + "x" + size + ", density: " + density);
+    System.out.println(String.format("%10s%10s%12s%10s%10s%10s", "Steps", "Guesses", "us/step", "Chunks", "Evicted",
+        "Heap MB"));
+    for (long maxSteps : stepLimits) {
+      LazyField field = new LazyField(size, size, density, seed);
+      SparseMSAgent agent = new SparseMSAgent(field, new Random(seed));
+      agent.setMaxSteps(maxSteps);
+      long heap = usedHeap();
+      long start = System.nanoTime();
+      agent.solve();
+      long duration = System.nanoTime() - start;
+      heap = usedHeap() - heap;
+      System.out.println(String.format("%10d%10d%12s%10d%10d%10s", agent.getSteps(), agent.getGuesses(),
+          df.format(duration / 1000.0 / agent.getSteps()), agent.getBoard().getNumOfChunks(),
+          agent.getBoard().getNumOfEvictedChunks(), df.format(heap / 1048576.0)));
+    }
+  }
+
+  /**
+   * Returns the used heap after a garbage collection.
+   * 
+   * @return the used heap (in bytes)
+   */
+  private static long usedHeap() {
+    System.gc();
+    return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+  }
+}
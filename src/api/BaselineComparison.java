@@ -0,0 +1,165 @@
+package api;
+
+/**
+ * Compares the statistics of a field to its baseline. The differences of the
+ * success rate and of the average duration of the won games are given with
+ * 95% confidence intervals, so only drops resp. slowdowns which can't be
+ * explained by the randomness of the played games (given the iterations of
+ * both runs) are flagged.
+ * 
+ * The interval of the success rates is Newcombe's hybrid score interval (built
+ * from the Wilson intervals of both rates, so it stays meaningful for rates of
+ * 0% and 100%), the one of the durations is Welch's t-interval. Without the
+ * standard deviations of both runs, no slowdown is flagged.
+ * 
+ * @author tthielen
+ */
+public class BaselineComparison {
+
+  public static final double Z = 1.959963984540054; // the 97.5% quantile of the standard normal distribution
+
+  private FieldStatistics baseline;
+  private FieldStatistics current;
+  private double rateDifference; // current - baseline success rate (in percentage points)
+  private double rateLower; // lower bound of the interval of the rate difference (in percentage points)
+  private double rateUpper; // upper bound of the interval of the rate difference (in percentage points)
+  private double durationDifference; // current - baseline average duration (in s)
+  private double durationMargin; // half width of the interval of the duration difference (in s, NaN = no spread)
+
+  public BaselineComparison(FieldStatistics baseline, FieldStatistics current) {
+    this.baseline = baseline;
+    this.current = current;
+
+    double p0 = baseline.getSuccessRate() / 100;
+    double p1 = current.getSuccessRate() / 100;
+    double[] ci0 = wilsonInterval(baseline.getSuccesses(), baseline.getIterations());
+    double[] ci1 = wilsonInterval(current.getSuccesses(), current.getIterations());
+    rateDifference = 100 * (p1 - p0);
+    rateLower = rateDifference - 100 * Math.sqrt(square(p1 - ci1[0]) + square(ci0[1] - p0));
+    rateUpper = rateDifference + 100 * Math.sqrt(square(ci1[1] - p1) + square(p0 - ci0[0]));
+
+    durationDifference = current.getAvgDuration() - baseline.getAvgDuration();
+    durationMargin = Double.NaN;
+    if (current.getSuccesses() >= 2 && baseline.getSuccesses() >= 2 && !Double.isNaN(current.getStdDuration())
+        && !Double.isNaN(baseline.getStdDuration())) {
+      double v1 = square(current.getStdDuration()) / current.getSuccesses();
+      double v0 = square(baseline.getStdDuration()) / baseline.getSuccesses();
+      double df = current.getSuccesses() - 1;
+      // the degrees of freedom of Welch-Satterthwaite
+      if (v0 + v1 > 0) {
+        df = square(v0 + v1)
+            / (square(v1) / (current.getSuccesses() - 1) + square(v0) / (baseline.getSuccesses() - 1));
+      }
+      durationMargin = tQuantile(df) * Math.sqrt(v0 + v1);
+    }
+  }
+
+  /**
+   * Returns whether the success rate dropped significantly, i.e. the whole
+   * interval of the rate difference is below 0.
+   * 
+   * @return whether the success rate dropped
+   */
+  public boolean isRateDrop() {
+    return rateUpper < 0;
+  }
+
+  /**
+   * Returns whether the won games got significantly slower, i.e. the whole
+   * interval of the duration difference is above the given share of the
+   * baseline's average duration.
+   * 
+   * @param tolerance the tolerated slowdown (e.g. 0.05 = 5%)
+   * @return whether the won games got slower
+   */
+  public boolean isSlowdown(double tolerance) {
+    return !Double.isNaN(durationMargin)
+        && durationDifference - durationMargin > tolerance * baseline.getAvgDuration();
+  }
+
+  /**
+   * Returns the 95% Wilson score interval of a success rate.
+   * 
+   * @param successes how many games were won
+   * @param n         how many games were played
+   * @return the lower and upper bound of the rate (between 0 and 1)
+   */
+  public static double[] wilsonInterval(int successes, int n) {
+    if (n == 0) {
+      return new double[] { 0, 1 };
+    }
+    double p = (double) successes / n;
+    double denominator = 1 + Z * Z / n;
+    double center = (p + Z * Z / (2 * n)) / denominator;
+    double margin = Z * Math.sqrt(p * (1 - p) / n + Z * Z / (4.0 * n * n)) / denominator;
+    return new double[] { Math.max(0, center - margin), Math.min(1, center + margin) };
+  }
+
+  /**
+   * Returns the half width of the 95% t-interval of the average duration of the
+   * won games of the given statistics.
+   * 
+   * @param statistics the statistics
+   * @return the half width (in s, NaN if less than two games were won)
+   */
+  public static double durationMargin(FieldStatistics statistics) {
+    if (statistics.getSuccesses() < 2 || Double.isNaN(statistics.getStdDuration())) {
+      return Double.NaN;
+    }
+    return tQuantile(statistics.getSuccesses() - 1) * statistics.getStdDuration()
+        / Math.sqrt(statistics.getSuccesses());
+  }
+
+  /**
+   * Approximates the 97.5% quantile of Student's t-distribution by the
+   * Cornish-Fisher expansion around the normal quantile (Abramowitz/Stegun
+   * 26.7.5), which is accurate to about 1% from 3 degrees of freedom on.
+   * 
+   * @param df the degrees of freedom
+   * @return the quantile
+   */
+  private static double tQuantile(double df) {
+    double z = Z;
+    double z3 = z * z * z;
+    double z5 = z3 * z * z;
+    double z7 = z5 * z * z;
+    double z9 = z7 * z * z;
+    double g1 = (z3 + z) / 4;
+    double g2 = (5 * z5 + 16 * z3 + 3 * z) / 96;
+    double g3 = (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / 384;
+    double g4 = (79 * z9 + 776 * z7 + 1482 * z5 - 1920 * z3 - 945 * z) / 92160;
+    return z + g1 / df + g2 / (df * df) + g3 / (df * df * df) + g4 / (df * df * df * df);
+  }
+
+  private static double square(double value) {
+    return value * value;
+  }
+
+  public FieldStatistics getBaseline() {
+    return this.baseline;
+  }
+
+  public FieldStatistics getCurrent() {
+    return this.current;
+  }
+
+  public double getRateDifference() {
+    return this.rateDifference;
+  }
+
+  public double getRateLower() {
+    return this.rateLower;
+  }
+
+  public double getRateUpper() {
+    return this.rateUpper;
+  }
+
+  public double getDurationDifference() {
+    return this.durationDifference;
+  }
+
+  public double getDurationMargin() {
+    return this.durationMargin;
+  }
+}
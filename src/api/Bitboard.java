@@ -0,0 +1,141 @@
+package api;
+
+/**
+ * A set of cells stored row by row as bits of long words (bit x % 64 of word x
+ * / 64 of a row is set for column x), so whole rows can be combined with a few
+ * bitwise operations instead of a loop over the cells.
+ * 
+ * It's used to compute the neighbour counts of all cells (the clues of a mine
+ * layout) by adding the eight shifted neighbour rows bit-parallel into four
+ * bit planes.
+ * 
+ * @author tthielen
+ */
+public class Bitboard {
+  private final int numOfCols;
+  private final int numOfRows;
+  private final int wordsPerRow;
+  private final long[] words; // row y consists of the words y * wordsPerRow ... (y + 1) * wordsPerRow - 1
+
+  /**
+   * Constructor which builds an empty board.
+   * 
+   * @param numOfCols the amount of columns
+   * @param numOfRows the amount of rows
+   */
+  public Bitboard(int numOfCols, int numOfRows) {
+    this.numOfCols = numOfCols;
+    this.numOfRows = numOfRows;
+    this.wordsPerRow = (numOfCols + 63) >>> 6;
+    this.words = new long[wordsPerRow * numOfRows];
+  }
+
+  /**
+   * Builds a board of the given cells.
+   * 
+   * @param numOfCols the amount of columns
+   * @param numOfRows the amount of rows
+   * @param cells     whether the cell with the index (x + y * numOfCols) is set
+   * @return the board
+   */
+  public static Bitboard of(int numOfCols, int numOfRows, boolean[] cells) {
+    Bitboard board = new Bitboard(numOfCols, numOfRows);
+    for (int y = 0; y < numOfRows; y++) {
+      for (int x = 0; x < numOfCols; x++) {
+        if (cells[x + y * numOfCols]) {
+          board.set(x, y);
+        }
+      }
+    }
+    return board;
+  }
+
+  private void set(int x, int y) {
+    words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+  }
+
+  /**
+   * Returns word w of row y shifted by one column towards the higher columns,
+   * i.e. bit x is the cell at x - 1.
+   */
+  private long shiftedUp(int y, int w) {
+    int i = y * wordsPerRow + w;
+    return (words[i] << 1) | (w > 0 ? words[i - 1] >>> 63 : 0);
+  }
+
+  /**
+   * Returns word w of row y shifted by one column towards the lower columns,
+   * i.e. bit x is the cell at x + 1.
+   */
+  private long shiftedDown(int y, int w) {
+    int i = y * wordsPerRow + w;
+    return (words[i] >>> 1) | (w < wordsPerRow - 1 ? words[i + 1] << 63 : 0);
+  }
+
+  /**
+   * Counts the set neighbours of every cell. The (up to) eight shifted
+   * neighbour words are added bit-parallel into four bit planes, so a word of 64
+   * cells costs a few dozen bitwise operations.
+   * 
+   * @return the count of the cell with the index (x + y * numOfCols)
+   */
+  public byte[] neighbourCounts() {
+    byte[] counts = new byte[numOfCols * numOfRows];
+    long[] planes = new long[4]; // bit plane i holds bit i of the counts of a word
+    for (int y = 0; y < numOfRows; y++) {
+      for (int w = 0; w < wordsPerRow; w++) {
+        planes[0] = planes[1] = planes[2] = planes[3] = 0;
+        for (int j = Math.max(0, y - 1); j <= Math.min(numOfRows - 1, y + 1); j++) {
+          add(planes, shiftedUp(j, w));
+          add(planes, shiftedDown(j, w));
+          if (j != y) {
+            add(planes, words[j * wordsPerRow + w]);
+          }
+        }
+        int columns = Math.min(64, numOfCols - (w << 6));
+        for (int b = 0; b < columns; b++) {
+          counts[(w << 6) + b + y * numOfCols] = (byte) (((planes[0] >>> b) & 1) | (((planes[1] >>> b) & 1) << 1)
+              | (((planes[2] >>> b) & 1) << 2) | (((planes[3] >>> b) & 1) << 3));
+        }
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Adds a word of one bit inputs to the bit planes of the counts (a ripple
+   * carry adder for 64 counts at once).
+   * 
+   * @param planes the bit planes of the counts
+   * @param a      the inputs
+   */
+  private static void add(long[] planes, long a) {
+    long carry = a;
+    for (int i = 0; i < planes.length && carry != 0; i++) {
+      long next = planes[i] & carry;
+      planes[i] ^= carry;
+      carry = next;
+    }
+  }
+
+  /**
+   * Returns the amount of set cells.
+   * 
+   * @return the amount of set cells
+   */
+  public int cardinality() {
+    int count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  public int getNumOfCols() {
+    return numOfCols;
+  }
+
+  public int getNumOfRows() {
+    return numOfRows;
+  }
+}
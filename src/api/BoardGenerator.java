@@ -0,0 +1,88 @@
+package api;
+
+import java.util.Random;
+
+/**
+ * Generates random mine layouts of any size, e.g. to test how the agents scale
+ * beyond the fields of the corpus. The generator is seeded, so the same seed
+ * always generates the same layouts.
+ * 
+ * If the first click is safe (default), neither (0,0) (where the agents always
+ * start) nor its neighbours are mines, so the first click uncovers a 0.
+ * 
+ * @author tthielen
+ */
+public class BoardGenerator {
+
+  private Random random; // used to place the mines
+  private boolean firstClickSafe = true; // used to keep (0,0) and its neighbours free of mines
+
+  /**
+   * Constructor: Initialises the random int generator with the given seed.
+   * 
+   * @param seed the seed of the generated layouts
+   */
+  public BoardGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Generates a layout with the given share of mines.
+   * 
+   * @param numOfCols
+   * @param numOfRows
+   * @param density   which share of the cells are mines (between 0 and 1)
+   * @return the layout
+   */
+  public FieldLayout generate(int numOfCols, int numOfRows, double density) {
+    return generate(numOfCols, numOfRows, (int) Math.round(density * numOfCols * numOfRows));
+  }
+
+  /**
+   * Generates a layout with the given amount of mines. Should there be less
+   * cells which may be mines, all of them are mines.
+   * 
+   * @param numOfCols
+   * @param numOfRows
+   * @param numOfMines
+   * @return the layout
+   */
+  public FieldLayout generate(int numOfCols, int numOfRows, int numOfMines) {
+    // the cells which may be mines
+    int[] candidates = new int[numOfCols * numOfRows];
+    int numOfCandidates = 0;
+    for (int y = 0; y < numOfRows; y++) {
+      for (int x = 0; x < numOfCols; x++) {
+        if (!firstClickSafe || x > 1 || y > 1) {
+          candidates[numOfCandidates++] = x + y * numOfCols;
+        }
+      }
+    }
+
+    // choose the mines by a partial Fisher-Yates shuffle of the candidates
+    boolean[] mines = new boolean[numOfCols * numOfRows];
+    int mineCount = Math.min(Math.max(0, numOfMines), numOfCandidates);
+    for (int i = 0; i < mineCount; i++) {
+      int j = i + random.nextInt(numOfCandidates - i);
+      int mine = candidates[j];
+      candidates[j] = candidates[i];
+      candidates[i] = mine;
+      mines[mine] = true;
+    }
+    return new FieldLayout(null, numOfCols, numOfRows, mines);
+  }
+
+  /**
+   * From now on, (0,0) and its neighbours are never mines.
+   */
+  public void activateFirstClickSafe() {
+    this.firstClickSafe = true;
+  }
+
+  /**
+   * From now on, the mines can be anywhere (the first click may be a mine).
+   */
+  public void deactivateFirstClickSafe() {
+    this.firstClickSafe = false;
+  }
+}
@@ -0,0 +1,32 @@
+package api;
+
+/**
+ * Holds the constraint a clue cell imposes on its covered neighbours: exactly
+ * count of the given variables are mines.
+ * 
+ * @author tthielen
+ */
+public class CardinalityConstraint {
+  private int[] variables;
+  private int count;
+
+  /**
+   * Constructor for the constraint.
+   * 
+   * @param variables the indices of the covered neighbours (which are not marked
+   *                  as mines)
+   * @param count     how many of the variables are mines
+   */
+  public CardinalityConstraint(int[] variables, int count) {
+    this.variables = variables;
+    this.count = count;
+  }
+
+  public int[] getVariables() {
+    return this.variables;
+  }
+
+  public int getCount() {
+    return this.count;
+  }
+}
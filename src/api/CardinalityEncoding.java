@@ -0,0 +1,32 @@
+package api;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+
+/**
+ * A strategy which translates a cardinality constraint ("exactly k of these
+ * variables are true") into constraints of a SAT solver.
+ * 
+ * @author tthielen
+ */
+public interface CardinalityEncoding {
+
+  /**
+   * Adds the constraint that exactly k of the given variables are true to the
+   * solver. Auxiliary variables may be reserved via the solver.
+   * 
+   * @param solver    the solver the constraint is added to
+   * @param variables the (positive) variables of the constraint
+   * @param k         how many of the variables are true
+   * @throws ContradictionException if the solver detects a trivial
+   *                                contradiction
+   */
+  public void addExactly(ISolver solver, int[] variables, int k) throws ContradictionException;
+
+  /**
+   * Returns the name of the encoding.
+   * 
+   * @return the name of the encoding
+   */
+  public String getName();
+}
@@ -0,0 +1,384 @@
+package api;
+
+import java.util.HashMap;
+
+/**
+ * A sparse representation of the field for huge boards: the cells are stored
+ * in chunks of 32x32 cells, which are only created once one of their cells is
+ * uncovered or marked as a mine. Every cell is addressed by its coordinates
+ * (or their key, see key(x, y)), so nothing has the size of the whole board.
+ * 
+ * A chunk whose cells are all uncovered or marked, and whose neighbouring
+ * chunks are as well, can't contain a clue cell any more, so its clues are
+ * evicted (only its bits remain). Unlike in the CompactBoard, a cell whose
+ * covered neighbours are all marked as mines is no clue cell, so the clue cells
+ * stay on the frontier. This way the memory mostly depends on the
+ * explored area.
+ * 
+ * @author tthielen
+ */
+public class ChunkedBoard {
+  public static final int CHUNK_BITS = 5; // a chunk has 2^CHUNK_BITS columns and rows
+  public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int KEY_MIX = 0x9E3779B9; // mixes the coordinates of a key (see key(x, y))
+
+  private int numOfCols;
+  private int numOfRows;
+  private HashMap<Long, Chunk> chunks = new HashMap<Long, Chunk>(); // the chunks by the key of their position
+  private long lastChunkKey = -1; // the key of the chunk used last (most lookups hit the same chunk)
+  private Chunk lastChunk = null;
+  private int numOfEvictedChunks = 0;
+
+  private KeySet clueCells = new KeySet(); // uncovered cells which still have unknown neighbours
+  private KeySet relevantCells = new KeySet(); // covered cells (not marked as mines) next to an uncovered cell
+
+  /**
+   * The cells of a chunk: the uncovered cells and the marked mines as one int
+   * per row (bit x is set for column x) and the clues as bytes.
+   */
+  private static class Chunk {
+    int[] uncovered = new int[CHUNK_SIZE];
+    int[] mines = new int[CHUNK_SIZE];
+    byte[] clues = new byte[CHUNK_SIZE * CHUNK_SIZE]; // null once evicted
+    int resolvedCells = 0; // how many cells are uncovered or marked as mines
+  }
+
+  /**
+   * Constructor which builds an entirely covered board (without any chunks).
+   * 
+   * @param numOfCols the amount of columns
+   * @param numOfRows the amount of rows
+   */
+  public ChunkedBoard(int numOfCols, int numOfRows) {
+    this.numOfCols = numOfCols;
+    this.numOfRows = numOfRows;
+  }
+
+  /**
+   * Returns the key of the given coordinates, which is used to address a cell
+   * (or a chunk) in sets and maps. The y-coordinate is mixed with the
+   * x-coordinate, as the hash code of a Long (its upper half XOR its lower half)
+   * would otherwise collide for all cells with the same x XOR y.
+   * 
+   * @param x the x-coordinate
+   * @param y the y-coordinate
+   * @return the key
+   */
+  public static long key(int x, int y) {
+    return ((long) x << 32) | ((y ^ (x * KEY_MIX)) & 0xffffffffL);
+  }
+
+  public static int getX(long key) {
+    return (int) (key >>> 32);
+  }
+
+  public static int getY(long key) {
+    return (int) key ^ (getX(key) * KEY_MIX);
+  }
+
+  /**
+   * Returns the chunk of the given cell.
+   * 
+   * @param x      the x-coordinate of the cell
+   * @param y      the y-coordinate of the cell
+   * @param create whether the chunk is created if it doesn't exist yet
+   * @return the chunk (null if it doesn't exist and isn't created)
+   */
+  private Chunk chunk(int x, int y, boolean create) {
+    long chunkKey = key(x >> CHUNK_BITS, y >> CHUNK_BITS);
+    if (chunkKey == lastChunkKey) {
+      return lastChunk;
+    }
+    Chunk chunk = chunks.get(chunkKey);
+    if (chunk == null) {
+      if (!create) {
+        return null;
+      }
+      chunk = new Chunk();
+      chunks.put(chunkKey, chunk);
+    }
+    lastChunkKey = chunkKey;
+    lastChunk = chunk;
+    return chunk;
+  }
+
+  /**
+   * Uncovers the given cell and saves its clue. The clue cells and relevant
+   * cells are only updated around the cell.
+   * 
+   * @param x    the x-coordinate of the cell
+   * @param y    the y-coordinate of the cell
+   * @param clue how many neighbours of the cell are mines
+   */
+  public void uncover(int x, int y, int clue) {
+    if (isUncovered(x, y)) {
+      return;
+    }
+    Chunk chunk = chunk(x, y, true);
+    chunk.uncovered[y & CHUNK_MASK] |= 1 << (x & CHUNK_MASK);
+    chunk.clues[((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK)] = (byte) clue;
+    long key = key(x, y);
+    relevantCells.remove(key);
+    if (hasUnknownNeighbours(x, y)) {
+      clueCells.add(key);
+    }
+    for (int j = Math.max(0, y - 1); j <= Math.min(numOfRows - 1, y + 1); j++) {
+      for (int i = Math.max(0, x - 1); i <= Math.min(numOfCols - 1, x + 1); i++) {
+        if (i == x && j == y) {
+          continue;
+        }
+        if (isUncovered(i, j)) {
+          if (!hasUnknownNeighbours(i, j)) {
+            // the neighbour's last unknown neighbour has been uncovered
+            clueCells.remove(key(i, j));
+          }
+        } else if (!isMine(i, j)) {
+          relevantCells.add(key(i, j));
+        }
+      }
+    }
+    resolve(chunk, x, y);
+  }
+
+  /**
+   * Marks the given cell as a mine.
+   * 
+   * @param x the x-coordinate of the cell
+   * @param y the y-coordinate of the cell
+   */
+  public void markMine(int x, int y) {
+    if (isMine(x, y)) {
+      return;
+    }
+    Chunk chunk = chunk(x, y, true);
+    chunk.mines[y & CHUNK_MASK] |= 1 << (x & CHUNK_MASK);
+    relevantCells.remove(key(x, y));
+    for (int j = Math.max(0, y - 1); j <= Math.min(numOfRows - 1, y + 1); j++) {
+      for (int i = Math.max(0, x - 1); i <= Math.min(numOfCols - 1, x + 1); i++) {
+        if (isUncovered(i, j) && !hasUnknownNeighbours(i, j)) {
+          // the neighbour's last unknown neighbour has been marked
+          clueCells.remove(key(i, j));
+        }
+      }
+    }
+    resolve(chunk, x, y);
+  }
+
+  /**
+   * Counts another resolved cell of the given chunk and evicts the clues of all
+   * chunks around it which can't contain clue cells any more.
+   * 
+   * @param chunk the chunk of the cell
+   * @param x     the x-coordinate of the cell
+   * @param y     the y-coordinate of the cell
+   */
+  private void resolve(Chunk chunk, int x, int y) {
+    chunk.resolvedCells++;
+    int cx = x >> CHUNK_BITS;
+    int cy = y >> CHUNK_BITS;
+    if (!isResolved(cx, cy)) {
+      return;
+    }
+    for (int j = cy - 1; j <= cy + 1; j++) {
+      for (int i = cx - 1; i <= cx + 1; i++) {
+        Chunk neighbour = chunks.get(key(i, j));
+        if (neighbour != null && neighbour.clues != null && isResolvedWithNeighbours(i, j)) {
+          neighbour.clues = null;
+          numOfEvictedChunks++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns whether all cells of the given chunk are uncovered or marked as
+   * mines (chunks outside of the board count as resolved).
+   * 
+   * @param cx the x-coordinate of the chunk
+   * @param cy the y-coordinate of the chunk
+   * @return true, if the chunk is resolved
+   */
+  private boolean isResolved(int cx, int cy) {
+    if (cx < 0 || cy < 0 || cx << CHUNK_BITS >= numOfCols || cy << CHUNK_BITS >= numOfRows) {
+      return true;
+    }
+    Chunk chunk = chunks.get(key(cx, cy));
+    if (chunk == null) {
+      return false;
+    }
+    int cols = Math.min(CHUNK_SIZE, numOfCols - (cx << CHUNK_BITS));
+    int rows = Math.min(CHUNK_SIZE, numOfRows - (cy << CHUNK_BITS));
+    return chunk.resolvedCells == cols * rows;
+  }
+
+  /**
+   * Returns whether the given chunk and all chunks around it are resolved.
+   * 
+   * @param cx the x-coordinate of the chunk
+   * @param cy the y-coordinate of the chunk
+   * @return true, if none of the cells of the chunk can be a clue cell
+   */
+  private boolean isResolvedWithNeighbours(int cx, int cy) {
+    for (int j = cy - 1; j <= cy + 1; j++) {
+      for (int i = cx - 1; i <= cx + 1; i++) {
+        if (!isResolved(i, j)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  public boolean isUncovered(int x, int y) {
+    Chunk chunk = chunk(x, y, false);
+    return chunk != null && (chunk.uncovered[y & CHUNK_MASK] & (1 << (x & CHUNK_MASK))) != 0;
+  }
+
+  public boolean isMine(int x, int y) {
+    Chunk chunk = chunk(x, y, false);
+    return chunk != null && (chunk.mines[y & CHUNK_MASK] & (1 << (x & CHUNK_MASK))) != 0;
+  }
+
+  /**
+   * Returns the clue of the given (uncovered) cell.
+   * 
+   * @param x the x-coordinate of the cell
+   * @param y the y-coordinate of the cell
+   * @return the clue or -1 if it's unknown (covered or evicted)
+   */
+  public int getClue(int x, int y) {
+    Chunk chunk = chunk(x, y, false);
+    if (chunk == null || chunk.clues == null || !isUncovered(x, y)) {
+      return -1;
+    }
+    return chunk.clues[((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK)];
+  }
+
+  /**
+   * Writes the keys of all covered neighbours of the given cell which aren't
+   * marked as mines into the given array.
+   * 
+   * @param x          the x-coordinate of the cell
+   * @param y          the y-coordinate of the cell
+   * @param neighbours an array of (at least) length 8
+   * @return the amount of such neighbours
+   */
+  public int getCoveredNeighboursNotMines(int x, int y, long[] neighbours) {
+    int n = 0;
+    for (int j = Math.max(0, y - 1); j <= Math.min(numOfRows - 1, y + 1); j++) {
+      for (int i = Math.max(0, x - 1); i <= Math.min(numOfCols - 1, x + 1); i++) {
+        if ((i != x || j != y) && !isUncovered(i, j) && !isMine(i, j)) {
+          neighbours[n++] = key(i, j);
+        }
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Returns whether the given cell has covered neighbours which aren't marked as
+   * mines.
+   * 
+   * @param x the x-coordinate of the cell
+   * @param y the y-coordinate of the cell
+   * @return true, if the cell has unknown neighbours
+   */
+  private boolean hasUnknownNeighbours(int x, int y) {
+    for (int j = Math.max(0, y - 1); j <= Math.min(numOfRows - 1, y + 1); j++) {
+      for (int i = Math.max(0, x - 1); i <= Math.min(numOfCols - 1, x + 1); i++) {
+        if ((i != x || j != y) && !isUncovered(i, j) && !isMine(i, j)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns how many neighbours of the given cell are covered (including the
+   * ones marked as mines).
+   * 
+   * @param x the x-coordinate of the cell
+   * @param y the y-coordinate of the cell
+   * @return the amount of covered neighbours
+   */
+  public int getCoveredNeighbourCount(int x, int y) {
+    int count = 0;
+    for (int j = Math.max(0, y - 1); j <= Math.min(numOfRows - 1, y + 1); j++) {
+      for (int i = Math.max(0, x - 1); i <= Math.min(numOfCols - 1, x + 1); i++) {
+        if ((i != x || j != y) && !isUncovered(i, j)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns how many neighbours of the given cell are marked as mines.
+   * 
+   * @param x the x-coordinate of the cell
+   * @param y the y-coordinate of the cell
+   * @return the amount of marked neighbours
+   */
+  public int getNeighbourMineCount(int x, int y) {
+    int count = 0;
+    for (int j = Math.max(0, y - 1); j <= Math.min(numOfRows - 1, y + 1); j++) {
+      for (int i = Math.max(0, x - 1); i <= Math.min(numOfCols - 1, x + 1); i++) {
+        if ((i != x || j != y) && isMine(i, j)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns all uncovered cells which still have covered neighbours that aren't
+   * marked as mines. The set is maintained on every uncover and markMine and
+   * must not be modified.
+   * 
+   * @return the keys of the clue cells
+   */
+  public KeySet getClueCells() {
+    return this.clueCells;
+  }
+
+  /**
+   * Returns all covered cells (which are not marked as mines) next to an
+   * uncovered cell. The set is maintained on every uncover and markMine and must
+   * not be modified.
+   * 
+   * @return the keys of the relevant cells
+   */
+  public KeySet getRelevantCells() {
+    return this.relevantCells;
+  }
+
+  public int getNumOfCols() {
+    return numOfCols;
+  }
+
+  public int getNumOfRows() {
+    return numOfRows;
+  }
+
+  /**
+   * Returns how many chunks have been created.
+   * 
+   * @return the amount of chunks
+   */
+  public int getNumOfChunks() {
+    return chunks.size();
+  }
+
+  /**
+   * Returns how many chunks have been evicted (i.e. only their bits remain).
+   * 
+   * @return the amount of evicted chunks
+   */
+  public int getNumOfEvictedChunks() {
+    return numOfEvictedChunks;
+  }
+}
@@ -0,0 +1,299 @@
+package api;
+
+/**
+ * A primitive representation of the field: the uncovered cells and the marked
+ * mines are stored as bitsets and the clues as bytes, every cell being
+ * addressed by its index (x + y * numOfCols).
+ * 
+ * The neighbours of a cell are written into an array provided by the caller,
+ * so none of the methods allocates anything.
+ * 
+ * @author tthielen
+ */
+public class CompactBoard {
+  private int numOfCols;
+  private int numOfRows;
+  private long[] uncovered; // bit i is set if cell i is uncovered
+  private long[] mines; // bit i is set if cell i is marked as a mine
+  private byte[] clues;
+  private NeighbourTable neighbourTable; // shared by all boards of the same dimensions
+
+  private int[] coveredNeighbourCounts; // the amount of covered neighbours of every cell
+  private IndexSet clueCells; // uncovered cells which still have covered neighbours
+  private IndexSet relevantCells; // covered cells (not marked as mines) next to an uncovered cell
+
+  /**
+   * Constructor which builds an entirely covered board.
+   * 
+   * @param numOfCols the amount of columns
+   * @param numOfRows the amount of rows
+   */
+  public CompactBoard(int numOfCols, int numOfRows) {
+    this.numOfCols = numOfCols;
+    this.numOfRows = numOfRows;
+    int size = numOfCols * numOfRows;
+    this.uncovered = new long[(size + 63) >>> 6];
+    this.mines = new long[(size + 63) >>> 6];
+    this.clues = new byte[size];
+    this.neighbourTable = NeighbourTable.forSize(numOfCols, numOfRows);
+    this.coveredNeighbourCounts = new int[size];
+    for (int index = 0; index < size; index++) {
+      coveredNeighbourCounts[index] = neighbourTable.count(index);
+    }
+    this.clueCells = new IndexSet(size);
+    this.relevantCells = new IndexSet(size);
+  }
+
+  /**
+   * Uncovers the cell with the given index and saves its clue. The clue cells
+   * and relevant cells are only updated around the cell.
+   * 
+   * @param index the index of the cell
+   * @param clue  how many neighbours of the cell are mines
+   */
+  public void uncover(int index, int clue) {
+    clues[index] = (byte) clue;
+    if (isUncovered(index)) {
+      return;
+    }
+    uncovered[index >>> 6] |= 1L << index;
+    relevantCells.remove(index);
+    if (coveredNeighbourCounts[index] > 0) {
+      clueCells.add(index);
+    }
+    for (int k = neighbourTable.start(index); k < neighbourTable.end(index); k++) {
+      int neighbour = neighbourTable.getNeighbour(k);
+      coveredNeighbourCounts[neighbour]--;
+      if (isUncovered(neighbour)) {
+        if (coveredNeighbourCounts[neighbour] == 0) {
+          // the neighbour's last covered neighbour has been uncovered
+          clueCells.remove(neighbour);
+        }
+      } else if (!isMine(neighbour)) {
+        relevantCells.add(neighbour);
+      }
+    }
+  }
+
+  /**
+   * Marks the cell with the given index as a mine.
+   * 
+   * @param index the index of the cell
+   */
+  public void markMine(int index) {
+    mines[index >>> 6] |= 1L << index;
+    relevantCells.remove(index);
+  }
+
+  public boolean isUncovered(int index) {
+    return (uncovered[index >>> 6] & (1L << index)) != 0;
+  }
+
+  public boolean isMine(int index) {
+    return (mines[index >>> 6] & (1L << index)) != 0;
+  }
+
+  public int getClue(int index) {
+    return clues[index];
+  }
+
+  /**
+   * Returns the word of the bitsets with the cells which are neither uncovered
+   * nor marked as mines (the bits beyond the last cell are unset).
+   * 
+   * @param w the index of the word
+   * @return the word
+   */
+  private long coveredNotMinesWord(int w) {
+    long word = ~(uncovered[w] | mines[w]);
+    int size = numOfCols * numOfRows;
+    if (w == uncovered.length - 1 && (size & 63) != 0) {
+      word &= (1L << size) - 1;
+    }
+    return word;
+  }
+
+  /**
+   * Returns how many cells are covered and not marked as mines, counting 64
+   * cells at a time.
+   * 
+   * @return the amount of such cells
+   */
+  public int getNumOfCoveredNotMines() {
+    int count = 0;
+    for (int w = 0; w < uncovered.length; w++) {
+      count += Long.bitCount(coveredNotMinesWord(w));
+    }
+    return count;
+  }
+
+  /**
+   * Returns the index of the first cell at or after the given index which is
+   * covered and not marked as a mine.
+   * 
+   * @param index the index to start from
+   * @return the index of the cell or -1 if there is none
+   */
+  public int nextCoveredNotMine(int index) {
+    int w = index >>> 6;
+    if (w >= uncovered.length) {
+      return -1;
+    }
+    long word = coveredNotMinesWord(w) & (-1L << index);
+    while (word == 0) {
+      if (++w == uncovered.length) {
+        return -1;
+      }
+      word = coveredNotMinesWord(w);
+    }
+    return (w << 6) + Long.numberOfTrailingZeros(word);
+  }
+
+  /**
+   * Returns the index of the k-th cell (in order of the indices) which is
+   * covered and not marked as a mine, skipping whole words via their bit count.
+   * 
+   * @param k the position of the cell (between 0 and getNumOfCoveredNotMines() -
+   *          1)
+   * @return the index of the cell
+   */
+  public int getCoveredNotMine(int k) {
+    for (int w = 0; w < uncovered.length; w++) {
+      long word = coveredNotMinesWord(w);
+      int count = Long.bitCount(word);
+      if (k < count) {
+        for (int i = 0; i < k; i++) {
+          word &= word - 1; // clears the lowest bit
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+      }
+      k -= count;
+    }
+    return -1;
+  }
+
+  /**
+   * Writes the indices of all neighbours of the given cell into the given array
+   * (in the same order as FieldOfCells.getNeighbourCells). Iterating the
+   * NeighbourTable directly avoids the copy.
+   * 
+   * @param index      the index of the cell
+   * @param neighbours an array of (at least) length 8
+   * @return the amount of neighbours
+   */
+  public int getNeighbours(int index, int[] neighbours) {
+    int n = 0;
+    for (int k = neighbourTable.start(index); k < neighbourTable.end(index); k++) {
+      neighbours[n++] = neighbourTable.getNeighbour(k);
+    }
+    return n;
+  }
+
+  /**
+   * Writes the indices of all covered neighbours (which are not marked as mines)
+   * of the given cell into the given array.
+   * 
+   * @param index      the index of the cell
+   * @param neighbours an array of (at least) length 8
+   * @return the amount of covered neighbours which are not marked as mines
+   */
+  public int getCoveredNeighboursNotMines(int index, int[] neighbours) {
+    int n = getNeighbours(index, neighbours);
+    int m = 0;
+    for (int i = 0; i < n; i++) {
+      int neighbour = neighbours[i];
+      if (!isUncovered(neighbour) && !isMine(neighbour)) {
+        neighbours[m++] = neighbour;
+      }
+    }
+    return m;
+  }
+
+  /**
+   * Returns the amount of covered neighbours of the given cell.
+   * 
+   * @param index the index of the cell
+   * @return the amount of covered neighbours
+   */
+  public int getCoveredNeighbourCount(int index) {
+    return coveredNeighbourCounts[index];
+  }
+
+  /**
+   * Returns the amount of marked mines among the neighbours of the given cell.
+   * 
+   * @param index the index of the cell
+   * @return the amount of marked mines among the neighbours
+   */
+  public int getNeighbourMineCount(int index) {
+    int count = 0;
+    for (int k = neighbourTable.start(index); k < neighbourTable.end(index); k++) {
+      if (isMine(neighbourTable.getNeighbour(k))) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns whether the given cell is uncovered and still has covered
+   * neighbours.
+   * 
+   * @param index the index of the cell
+   * @return true, if the cell is a clue cell
+   */
+  public boolean isClueCell(int index) {
+    return clueCells.contains(index);
+  }
+
+  /**
+   * Returns all uncovered cells which still have covered neighbours. The set is
+   * maintained on every uncover and must not be modified.
+   * 
+   * @return the clue cells
+   */
+  public IndexSet getClueCells() {
+    return this.clueCells;
+  }
+
+  /**
+   * Returns all covered cells (which are not marked as mines) next to an
+   * uncovered cell, i.e. all covered neighbours of the clue cells. The set is
+   * maintained on every uncover and markMine and must not be modified.
+   * 
+   * @return the relevant cells
+   */
+  public IndexSet getRelevantCells() {
+    return this.relevantCells;
+  }
+
+  /**
+   * Returns the precomputed neighbours of all cells, which can be iterated
+   * without copying them.
+   * 
+   * @return the neighbour table
+   */
+  public NeighbourTable getNeighbourTable() {
+    return this.neighbourTable;
+  }
+
+  public int getX(int index) {
+    return index % numOfCols;
+  }
+
+  public int getY(int index) {
+    return index / numOfCols;
+  }
+
+  public int getNumOfCols() {
+    return this.numOfCols;
+  }
+
+  public int getNumOfRows() {
+    return this.numOfRows;
+  }
+
+  public int size() {
+    return this.clues.length;
+  }
+}
@@ -0,0 +1,93 @@
+package api;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * A solver for cardinality constraints ("exactly k of these variables are
+ * true") and unit facts over the variables 1 to n, which answers satisfiability
+ * queries under a single assumption. Constraints and facts are only ever added,
+ * so a solver may keep whatever it learned between the queries.
+ * 
+ * @author tthielen
+ */
+public interface ConstraintSolver {
+
+  /**
+   * Adds the constraint that exactly k of the given variables are true.
+   * 
+   * @param variables the (positive) variables of the constraint
+   * @param k         how many of the variables are true
+   * @throws ContradictionException if the solver detects a contradiction
+   */
+  public void addExactly(int[] variables, int k) throws ContradictionException;
+
+  /**
+   * Adds the fact that the given literal is true.
+   * 
+   * @param literal the variable (if it's true) or its negation (if it's false)
+   * @throws ContradictionException if the solver detects a contradiction
+   */
+  public void addFact(int literal) throws ContradictionException;
+
+  /**
+   * Sets the deadline after which the queries throw a TimeoutException.
+   * 
+   * @param deadline the deadline
+   */
+  public void setDeadline(Deadline deadline);
+
+  /**
+   * Checks whether the constraints are satisfiable.
+   * 
+   * @return true, if they are satisfiable (a model can then be retrieved)
+   * @throws TimeoutException if the deadline has passed
+   */
+  public boolean isSatisfiable() throws TimeoutException;
+
+  /**
+   * Checks whether the constraints are satisfiable if the given literal is
+   * assumed to be true (without adding it).
+   * 
+   * @param assumption the assumed literal
+   * @return true, if they are satisfiable (a model can then be retrieved)
+   * @throws TimeoutException if the deadline has passed
+   */
+  public boolean isSatisfiable(int assumption) throws TimeoutException;
+
+  /**
+   * Returns the model found by the last satisfiable query.
+   * 
+   * @return the model as an array of literals
+   */
+  public int[] model();
+
+  /**
+   * Returns the amount of variables (including auxiliary variables).
+   * 
+   * @return the amount of variables
+   */
+  public int getNumOfVariables();
+
+  /**
+   * Returns the amount of constraints in the solver.
+   * 
+   * @return the amount of constraints
+   */
+  public int getNumOfConstraints();
+
+  /**
+   * Returns how many conflicts the solver ran into (over all queries so far).
+   * 
+   * @return the amount of conflicts
+   */
+  public long getNumOfConflicts();
+
+  /**
+   * Returns how many assignments the solver propagated (over all queries so
+   * far).
+   * 
+   * @return the amount of propagations
+   */
+  public long getNumOfPropagations();
+}
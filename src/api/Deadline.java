@@ -0,0 +1,68 @@
+package api;
+
+/**
+ * A point in time (of System.nanoTime()) after which the proofs have to stop.
+ * The unbounded deadline NONE never passes.
+ * 
+ * @author tthielen
+ */
+public class Deadline {
+
+  public static final Deadline NONE = new Deadline(0, false);
+
+  private long time; // the value of System.nanoTime() at the deadline
+  private boolean bounded; // whether the deadline can pass at all
+
+  private Deadline(long time, boolean bounded) {
+    this.time = time;
+    this.bounded = bounded;
+  }
+
+  /**
+   * Returns the deadline which passes after the given time from now on.
+   * 
+   * @param nanos the time until the deadline (in ns)
+   * @return the deadline
+   */
+  public static Deadline after(long nanos) {
+    return new Deadline(System.nanoTime() + nanos, true);
+  }
+
+  /**
+   * Returns the earlier one of this and the given deadline.
+   * 
+   * @param other the other deadline
+   * @return the earlier deadline
+   */
+  public Deadline earliest(Deadline other) {
+    if (!other.bounded) {
+      return this;
+    }
+    if (!bounded || other.time - time < 0) {
+      return other;
+    }
+    return this;
+  }
+
+  /**
+   * Returns whether the deadline has passed.
+   * 
+   * @return true, if the deadline has passed
+   */
+  public boolean isExceeded() {
+    return bounded && System.nanoTime() - time >= 0;
+  }
+
+  /**
+   * Returns how much time is left until the deadline.
+   * 
+   * @return the remaining time (in ns, Long.MAX_VALUE if unbounded)
+   */
+  public long getRemainingNanos() {
+    return bounded ? time - System.nanoTime() : Long.MAX_VALUE;
+  }
+
+  public boolean isBounded() {
+    return bounded;
+  }
+}
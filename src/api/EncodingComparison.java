@@ -0,0 +1,65 @@
+package api;
+
+import java.text.DecimalFormat;
+
+/**
+ * Compares the available cardinality encodings on the given fields by the size
+ * of the generated knowledge bases and the duration of the games.
+ * 
+ * @author tthielen
+ */
+public class EncodingComparison {
+
+  private static final CardinalityEncoding[] encodings = { new TruthTableEncoding(), new SequentialCounterEncoding(),
+      new NativeCardinalityEncoding() };
+
+  /**
+   * Main method which needs to be run to compare the encodings.
+   * 
+   * @param args
+   */
+  public static void main(String[] args) {
+    // How many games are played per field and encoding (CHANGE VALUE)
+    int iterations = 20;
+
+    for (int i = 0; i < Main.fields.length; i++) {
+      System.out.println("\nField " + Main.fields[i] + ":");
+      for (CardinalityEncoding encoding : encodings) {
+        compare(i, iterations, encoding);
+      }
+    }
+  }
+
+  /**
+   * Solves a given field a given amount of times with the given encoding and
+   * displays the average size of the knowledge bases and the average duration.
+   * 
+   * @param field      the minesweeper field
+   * @param iterations how many times the field should be solved
+   * @param encoding   the cardinality encoding
+   */
+  private static void compare(int field, int iterations, CardinalityEncoding encoding) {
+    long satSteps = 0;
+    long variables = 0;
+    long constraints = 0;
+    long duration = 0;
+
+    for (int i = 0; i < iterations; i++) {
+      long start = System.currentTimeMillis();
+      SatMSAgent agent = new SatMSAgent(new MSField("fields/" + Main.fields[field]));
+      agent.setCardinalityEncoding(encoding);
+      agent.solve();
+      duration += System.currentTimeMillis() - start;
+      satSteps += agent.getSatSteps();
+      variables += agent.getNumOfVariables();
+      constraints += agent.getNumOfConstraints();
+    }
+
+    DecimalFormat df = new DecimalFormat("#.#");
+    DecimalFormat dfa = new DecimalFormat("#.###");
+    double steps = Math.max(1, satSteps);
+    System.out.println(String.format("%-20s", encoding.getName()) + "Ø variables/step: " + df.format(variables / steps)
+        + "\tØ constraints/step: " + df.format(constraints / steps) + "\tØ duration: "
+        + dfa.format((double) duration / iterations / 1000) + "s");
+  }
+}
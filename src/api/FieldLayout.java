@@ -0,0 +1,203 @@
+package api;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The immutable mine layout of a field file. Every file is read and parsed
+ * only once (in a single pass over its bytes) and then shared by all games
+ * played on it, so repeated games don't repeat the disk I/O and parsing of
+ * MSField.
+ * 
+ * Layouts can also be generated (see BoardGenerator).
+ * 
+ * The cells are indexed row by row (index = x + y * numOfCols), like in the
+ * CompactBoard.
+ * 
+ * @author tthielen
+ */
+public class FieldLayout {
+
+  // the parsed layouts by path (shared by all threads)
+  private static final ConcurrentHashMap<String, FieldLayout> layouts = new ConcurrentHashMap<String, FieldLayout>();
+
+  private final String path; // the path of the field file
+  private final int numOfCols;
+  private final int numOfRows;
+  private final boolean[] mines; // whether the cell with the index is a mine
+  private final byte[] clues; // how many neighbours of the cell with the index are mines
+  private final int numOfMines;
+
+  /**
+   * Constructor: Uses the given mines and counts the clues of all cells once
+   * (they never change, so they are shared by all games).
+   * 
+   * @param path      the path of the field file (null if it was generated)
+   * @param numOfCols
+   * @param numOfRows
+   * @param mines     whether the cell with the index is a mine
+   */
+  FieldLayout(String path, int numOfCols, int numOfRows, boolean[] mines) {
+    this.path = path;
+    this.numOfCols = numOfCols;
+    this.numOfRows = numOfRows;
+    this.mines = mines;
+    // the clues are the neighbour counts of the mines (computed 64 cells at a time)
+    Bitboard mineBoard = Bitboard.of(numOfCols, numOfRows, mines);
+    clues = mineBoard.neighbourCounts();
+    numOfMines = mineBoard.cardinality();
+  }
+
+  /**
+   * Parses the given content of a field file.
+   * 
+   * @param path    the path of the field file
+   * @param content the content of the field file
+   * @return the layout of the field
+   */
+  private static FieldLayout parse(String path, byte[] content) {
+    // the first line determines the amount of columns (every cell is followed by a
+    // space)
+    int lineLength = 0;
+    while (lineLength < content.length && content[lineLength] != '\n' && content[lineLength] != '\r') {
+      lineLength++;
+    }
+    int numOfCols = lineLength / 2;
+
+    // count the rows and read the cells in the same pass (usually every line has
+    // the length of the first one, which bounds the amount of rows)
+    boolean[] cells = new boolean[(content.length / Math.max(1, lineLength) + 1) * numOfCols];
+    int rows = 0;
+    int i = 0;
+    while (i < content.length) {
+      int lineStart = i;
+      while (i < content.length && content[i] != '\n' && content[i] != '\r') {
+        i++;
+      }
+      if ((rows + 1) * numOfCols > cells.length) {
+        cells = Arrays.copyOf(cells, cells.length * 2);
+      }
+      for (int x = 0; x < numOfCols && lineStart + x * 2 < i; x++) {
+        cells[x + rows * numOfCols] = content[lineStart + x * 2] == 'X';
+      }
+      rows++;
+      // skip the line break ("\n" or "\r\n")
+      if (i < content.length && content[i] == '\r') {
+        i++;
+      }
+      if (i < content.length && content[i] == '\n') {
+        i++;
+      }
+    }
+    return new FieldLayout(path, numOfCols, rows, Arrays.copyOf(cells, numOfCols * rows));
+  }
+
+  /**
+   * Returns the layout of the given field file, which is only read the first
+   * time it's requested.
+   * 
+   * @param path the path of the field file
+   * @return the layout of the field
+   * @throws UncheckedIOException if the field file can't be read
+   */
+  public static FieldLayout load(String path) {
+    return layouts.computeIfAbsent(path, p -> {
+      try {
+        return read(p);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Reads and parses the given field file (without caching it).
+   * 
+   * @param path the path of the field file
+   * @return the layout of the field
+   * @throws IOException if the field file can't be read
+   */
+  public static FieldLayout read(String path) throws IOException {
+    return parse(path, Files.readAllBytes(Paths.get(path)));
+  }
+
+  /**
+   * Writes this layout in the format of the field files, so it can be read by
+   * MSField as well.
+   * 
+   * @param path the path of the field file
+   * @throws IOException if the field file can't be written
+   */
+  public void write(String path) throws IOException {
+    try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(path))) {
+      for (int y = 0; y < numOfRows; y++) {
+        for (int x = 0; x < numOfCols; x++) {
+          bw.write(isMine(x, y) ? "X " : "- ");
+        }
+        bw.write("\n");
+      }
+    }
+  }
+
+  /**
+   * Starts a new game on this layout.
+   * 
+   * @return the (entirely covered) game
+   */
+  public LayoutGame newGame() {
+    return new LayoutGame(this);
+  }
+
+  /**
+   * Returns the path of the field file.
+   * 
+   * @return the path (null if the layout was generated)
+   */
+  public String getPath() {
+    return path;
+  }
+
+  public int getNumOfCols() {
+    return numOfCols;
+  }
+
+  public int getNumOfRows() {
+    return numOfRows;
+  }
+
+  public int getNumOfMines() {
+    return numOfMines;
+  }
+
+  /**
+   * Returns the amount of cells.
+   * 
+   * @return the amount of cells
+   */
+  public int size() {
+    return mines.length;
+  }
+
+  public boolean isMine(int index) {
+    return mines[index];
+  }
+
+  public boolean isMine(int x, int y) {
+    return mines[x + y * numOfCols];
+  }
+
+  /**
+   * Returns how many neighbours of the cell with the given index are mines.
+   * 
+   * @param index the index of the cell
+   * @return the clue of the cell
+   */
+  public int getClue(int index) {
+    return clues[index];
+  }
+}
@@ -1,15 +1,18 @@
 package api;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 
 /**
  * An inner representation of the field holding all cells.
  * 
+ * All queries are answered via a CompactBoard mirroring the cells, which can
+ * also be used directly on hot paths to avoid allocating lists of cells.
+ * 
  * @author tthielen
  */
 public class FieldOfCells {
   private ArrayList<Cell> cells;
+  private CompactBoard board;
   private int numOfCols;
   private int numOfRows;
 
@@ -28,6 +31,7 @@ public class FieldOfCells {
         i++;
       }
     }
+    this.board = new CompactBoard(numOfCols, numOfRows);
     this.numOfCols = numOfCols;
     this.numOfRows = numOfRows;
   }
@@ -38,18 +42,10 @@ public class FieldOfCells {
    * @return all clue cells
    */
   public ArrayList<Cell> getClueCells() {
-    ArrayList<Cell> clueCells = new ArrayList<Cell>();
-    for (Cell c : cells) {
-      ArrayList<Cell> coveredNeighbours = getCoveredNeighbourCells(c.getX(), c.getY());
-      ArrayList<Cell> coveredNeighboursNotMine = new ArrayList<Cell>();
-      for (Cell cn : coveredNeighbours) {
-        if (!cn.isMine()) {
-          coveredNeighboursNotMine.add(cn);
-        }
-      }
-      if (coveredNeighbours.size() > 0 && c.isUncovered()) {
-        clueCells.add(c);
-      }
+    IndexSet clueCellSet = board.getClueCells();
+    ArrayList<Cell> clueCells = new ArrayList<Cell>(clueCellSet.size());
+    for (int k = 0; k < clueCellSet.size(); k++) {
+      clueCells.add(cells.get(clueCellSet.get(k)));
     }
     return clueCells;
   }
@@ -60,12 +56,11 @@ public class FieldOfCells {
    * @return all relevant cells
    */
   public ArrayList<Cell> getAllRelevantCells() {
-    HashSet<Cell> allRelevantCellsSet = new HashSet<Cell>();
-    for (Cell c : getClueCells()) {
-      allRelevantCellsSet.addAll(getCoveredNeighbourCellsNotMines(c.getX(), c.getY()));
+    IndexSet relevantCellSet = board.getRelevantCells();
+    ArrayList<Cell> allRelevantCells = new ArrayList<Cell>(relevantCellSet.size());
+    for (int k = 0; k < relevantCellSet.size(); k++) {
+      allRelevantCells.add(cells.get(relevantCellSet.get(k)));
     }
-    ArrayList<Cell> allRelevantCells = new ArrayList<Cell>();
-    allRelevantCells.addAll(allRelevantCellsSet);
     return allRelevantCells;
   }
 
@@ -78,6 +73,7 @@ public class FieldOfCells {
    */
   public void uncoverCell(int x, int y, int clue) {
     getCell(x, y).uncover(clue);
+    board.uncover(x + y * numOfCols, clue);
   }
 
   /**
@@ -88,6 +84,7 @@ public class FieldOfCells {
    */
   public void markMine(int x, int y) {
     getCell(x, y).markMine();
+    board.markMine(x + y * numOfCols);
   }
 
   /**
@@ -98,11 +95,12 @@ public class FieldOfCells {
    * @return all covered neighbours of the cell
    */
   public ArrayList<Cell> getCoveredNeighbourCells(int x, int y) {
-    ArrayList<Cell> neighbourCells = getNeighbourCells(x, y);
-    ArrayList<Cell> coveredNeighbourCells = new ArrayList<Cell>();
-    for (Cell c : neighbourCells) {
-      if (!c.isUncovered()) {
-        coveredNeighbourCells.add(c);
+    int[] neighbours = new int[8];
+    int n = board.getNeighbours(x + y * numOfCols, neighbours);
+    ArrayList<Cell> coveredNeighbourCells = new ArrayList<Cell>(n);
+    for (int i = 0; i < n; i++) {
+      if (!board.isUncovered(neighbours[i])) {
+        coveredNeighbourCells.add(cells.get(neighbours[i]));
       }
     }
     return coveredNeighbourCells;
@@ -117,12 +115,11 @@ public class FieldOfCells {
    * @return all covered neighbours (which are not marked as mines) of the cell
    */
   public ArrayList<Cell> getCoveredNeighbourCellsNotMines(int x, int y) {
-    ArrayList<Cell> coveredNeighbourCells = getCoveredNeighbourCells(x, y);
-    ArrayList<Cell> coveredNeighbourCellsNotMines = new ArrayList<Cell>();
-    for (Cell c : coveredNeighbourCells) {
-      if (!c.isMine()) {
-        coveredNeighbourCellsNotMines.add(c);
-      }
+    int[] neighbours = new int[8];
+    int n = board.getCoveredNeighboursNotMines(x + y * numOfCols, neighbours);
+    ArrayList<Cell> coveredNeighbourCellsNotMines = new ArrayList<Cell>(n);
+    for (int i = 0; i < n; i++) {
+      coveredNeighbourCellsNotMines.add(cells.get(neighbours[i]));
     }
     return coveredNeighbourCellsNotMines;
   }
@@ -135,10 +132,7 @@ public class FieldOfCells {
    * @return the amount of marked mines among the neighbours of the cell
    */
   public int getNeighbourMineCount(int x, int y) {
-    ArrayList<Cell> coveredNeighbourCells = getCoveredNeighbourCells(x, y);
-    ArrayList<Cell> coveredNeighbourCellsNotMines = getCoveredNeighbourCellsNotMines(x, y);
-    return (coveredNeighbourCells.size() - coveredNeighbourCellsNotMines.size());
-
+    return board.getNeighbourMineCount(x + y * numOfCols);
   }
 
   /**
@@ -147,11 +141,9 @@ public class FieldOfCells {
    * @return all cells which are covered and haven't been marked
    */
   public ArrayList<Cell> getAllCoveredNotDefinitelyMines() {
-    ArrayList<Cell> coveredNotDefinitelyMines = new ArrayList<Cell>();
-    for (Cell c : cells) {
-      if (!c.isUncovered() && !c.isMine()) {
-        coveredNotDefinitelyMines.add(c);
-      }
+    ArrayList<Cell> coveredNotDefinitelyMines = new ArrayList<Cell>(board.getNumOfCoveredNotMines());
+    for (int i = board.nextCoveredNotMine(0); i >= 0; i = board.nextCoveredNotMine(i + 1)) {
+      coveredNotDefinitelyMines.add(cells.get(i));
     }
     return coveredNotDefinitelyMines;
   }
@@ -164,38 +156,11 @@ public class FieldOfCells {
    * @return all neighbours of the cell
    */
   public ArrayList<Cell> getNeighbourCells(int x, int y) {
-    ArrayList<Cell> neighbourCells = new ArrayList<Cell>();
-    // Upper Neighbour
-    if (y > 0) {
-      neighbourCells.add(getCell(x, y - 1));
-    }
-    // Upper Right Neighbour
-    if (y > 0 && x < numOfCols - 1) {
-      neighbourCells.add(getCell(x + 1, y - 1));
-    }
-    // Right Neighbour
-    if (x < numOfCols - 1) {
-      neighbourCells.add(getCell(x + 1, y));
-    }
-    // Lower Right Neighbour
-    if (y < numOfRows - 1 && x < numOfCols - 1) {
-      neighbourCells.add(getCell(x + 1, y + 1));
-    }
-    // Lower Neighbour
-    if (y < numOfRows - 1) {
-      neighbourCells.add(getCell(x, y + 1));
-    }
-    // Lower Left Neighbour
-    if (y < numOfRows - 1 && x > 0) {
-      neighbourCells.add(getCell(x - 1, y + 1));
-    }
-    // Left Neighbour
-    if (x > 0) {
-      neighbourCells.add(getCell(x - 1, y));
-    }
-    // Upper Left Neighbour
-    if (y > 0 && x > 0) {
-      neighbourCells.add(getCell(x - 1, y - 1));
+    int[] neighbours = new int[8];
+    int n = board.getNeighbours(x + y * numOfCols, neighbours);
+    ArrayList<Cell> neighbourCells = new ArrayList<Cell>(n);
+    for (int i = 0; i < n; i++) {
+      neighbourCells.add(cells.get(neighbours[i]));
     }
     return neighbourCells;
   }
@@ -219,4 +184,33 @@ public class FieldOfCells {
   public Cell getCell(int x, int y) {
     return cells.get(x + y * numOfCols);
   }
+
+  /**
+   * Returns the primitive representation of the field. It must only be modified
+   * via this class, so both representations stay in sync.
+   * 
+   * @return the compact board
+   */
+  public CompactBoard getBoard() {
+    return this.board;
+  }
+
+  /**
+   * Marks the given cell as a mine.
+   * 
+   * @param cell the cell
+   */
+  public void markMine(Cell cell) {
+    markMine(cell.getX(), cell.getY());
+  }
+
+  /**
+   * Returns the cell with the given index.
+   * 
+   * @param index the index of the cell in the ArrayList
+   * @return the cell with the given index
+   */
+  public Cell getCell(int index) {
+    return cells.get(index);
+  }
 }
@@ -0,0 +1,125 @@
+package api;
+
+import java.util.Locale;
+
+/**
+ * The results of solving a field a number of times: how many of the games were
+ * won and how long the won games took. Every instance is one row of a results
+ * file (see ResultsFile), so the results of a run can serve as the baseline of
+ * later runs.
+ * 
+ * @author tthielen
+ */
+public class FieldStatistics {
+
+  public static final String HEADER = "field,iterations,successes,rate,avgDuration,stdDuration,p50,p90,p99,p99.9,max";
+  public static final double[] PERCENTILES = { 50, 90, 99, 99.9, 100 }; // the percentiles of the durations
+
+  private String field; // the name of the field file
+  private int iterations; // how many games were played
+  private int successes; // how many of the games were won
+  private double avgDuration; // the average duration of the won games (in s)
+  private double stdDuration; // the standard deviation of the durations of the won games (in s, NaN = unknown)
+  private double[] percentiles; // the durations of the won games at PERCENTILES (in s, NaN = unknown)
+
+  public FieldStatistics(String field, int iterations, int successes, double avgDuration, double stdDuration,
+      double[] percentiles) {
+    this.field = field;
+    this.iterations = iterations;
+    this.successes = successes;
+    this.avgDuration = avgDuration;
+    this.stdDuration = stdDuration;
+    this.percentiles = percentiles;
+  }
+
+  /**
+   * Creates the statistics of a field from the durations of its won games.
+   * 
+   * @param field      the name of the field file
+   * @param iterations how many games were played
+   * @param wonGames   the durations of the won games (in ns)
+   */
+  public FieldStatistics(String field, int iterations, LatencyHistogram wonGames) {
+    this(field, iterations, (int) wonGames.getCount(), wonGames.getMean() / 1e9,
+        wonGames.getStandardDeviation() / 1e9, new double[PERCENTILES.length]);
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      percentiles[i] = wonGames.getPercentile(PERCENTILES[i]) / 1e9;
+    }
+  }
+
+  /**
+   * Parses a row of a results file (empty values are unknown).
+   * 
+   * @param row the row
+   * @return the statistics
+   * @throws IllegalArgumentException if the row is malformed
+   */
+  public static FieldStatistics parse(String row) {
+    String[] values = row.split(",", -1);
+    if (values.length != HEADER.split(",").length) {
+      throw new IllegalArgumentException("Expected " + HEADER.split(",").length + " values: " + row);
+    }
+    double[] percentiles = new double[PERCENTILES.length];
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      percentiles[i] = parseValue(values[6 + i]);
+    }
+    // the success rate is redundant, it's only written for readability
+    return new FieldStatistics(values[0], Integer.parseInt(values[1].trim()), Integer.parseInt(values[2].trim()),
+        parseValue(values[4]), parseValue(values[5]), percentiles);
+  }
+
+  /**
+   * Returns this statistics as a row of a results file.
+   * 
+   * @return the row
+   */
+  public String toCsv() {
+    String row = field + "," + iterations + "," + successes + "," + format(getSuccessRate()) + ","
+        + format(avgDuration) + "," + format(stdDuration);
+    for (double percentile : percentiles) {
+      row += "," + format(percentile);
+    }
+    return row;
+  }
+
+  private static double parseValue(String value) {
+    return value.trim().isEmpty() ? Double.NaN : Double.parseDouble(value.trim());
+  }
+
+  private static String format(double value) {
+    return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.6f", value);
+  }
+
+  public String getField() {
+    return this.field;
+  }
+
+  public int getIterations() {
+    return this.iterations;
+  }
+
+  public int getSuccesses() {
+    return this.successes;
+  }
+
+  /**
+   * Returns the percentage of won games.
+   * 
+   * @return the success rate (in %)
+   */
+  public double getSuccessRate() {
+    return iterations == 0 ? 0 : 100 * (double) successes / iterations;
+  }
+
+  public double getAvgDuration() {
+    return this.avgDuration;
+  }
+
+  public double getStdDuration() {
+    return this.stdDuration;
+  }
+
+  public double[] getPercentiles() {
+    return this.percentiles;
+  }
+}
@@ -0,0 +1,91 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * Splits the constraints of the frontier into connected components. Two
+ * constraints are connected if they share a variable (i.e. their clue cells
+ * share a covered neighbour), so the components can be proven independently of
+ * each other.
+ * 
+ * @author tthielen
+ */
+public class FrontierComponents {
+
+  /**
+   * Splits the given constraints into their connected components.
+   * 
+   * @param constraints the generated constraints from all clue cells
+   * @return a list of all components, each being a list of constraints
+   */
+  public static ArrayList<ArrayList<CardinalityConstraint>> split(ArrayList<CardinalityConstraint> constraints) {
+    // union-find over the constraints
+    int[] parent = new int[constraints.size()];
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+    }
+    // the first constraint each variable has been seen in
+    HashMap<Integer, Integer> firstConstraint = new HashMap<Integer, Integer>();
+    for (int i = 0; i < constraints.size(); i++) {
+      for (int v : constraints.get(i).getVariables()) {
+        Integer first = firstConstraint.putIfAbsent(v, i);
+        if (first != null) {
+          parent[find(parent, i)] = find(parent, first);
+        }
+      }
+    }
+
+    // group the constraints by their root
+    HashMap<Integer, ArrayList<CardinalityConstraint>> components;
+    components = new HashMap<Integer, ArrayList<CardinalityConstraint>>();
+    ArrayList<ArrayList<CardinalityConstraint>> result = new ArrayList<ArrayList<CardinalityConstraint>>();
+    for (int i = 0; i < constraints.size(); i++) {
+      ArrayList<CardinalityConstraint> component = components.get(find(parent, i));
+      if (component == null) {
+        component = new ArrayList<CardinalityConstraint>();
+        components.put(find(parent, i), component);
+        result.add(component);
+      }
+      component.add(constraints.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Returns all distinct variables of the given constraints.
+   * 
+   * @param constraints a list of constraints
+   * @return the variables in order of their first occurrence
+   */
+  public static int[] getVariables(ArrayList<CardinalityConstraint> constraints) {
+    LinkedHashSet<Integer> variables = new LinkedHashSet<Integer>();
+    for (CardinalityConstraint constraint : constraints) {
+      for (int v : constraint.getVariables()) {
+        variables.add(v);
+      }
+    }
+    int[] result = new int[variables.size()];
+    int i = 0;
+    for (int v : variables) {
+      result[i++] = v;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the root of the given element and compresses the path to it.
+   * 
+   * @param parent the parent of every element
+   * @param i      the element
+   * @return the root of the element
+   */
+  private static int find(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+}
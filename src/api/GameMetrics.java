@@ -0,0 +1,78 @@
+package api;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+/**
+ * The metrics of all steps of a game, which can be exported as CSV (one row per
+ * step) or as JSON lines (one object per step).
+ * 
+ * @author tthielen
+ */
+public class GameMetrics {
+  private ArrayList<StepMetrics> steps = new ArrayList<StepMetrics>();
+
+  /**
+   * Starts the metrics of the next step.
+   * 
+   * @return the metrics of the step
+   */
+  public StepMetrics newStep() {
+    StepMetrics step = new StepMetrics(steps.size() + 1);
+    steps.add(step);
+    return step;
+  }
+
+  public ArrayList<StepMetrics> getSteps() {
+    return this.steps;
+  }
+
+  /**
+   * Returns the sum of a metric over all steps.
+   * 
+   * @param metric the metric (one of the constants of StepMetrics)
+   * @return the sum
+   */
+  public long getTotal(int metric) {
+    long total = 0;
+    for (StepMetrics step : steps) {
+      total += step.get(metric);
+    }
+    return total;
+  }
+
+  /**
+   * Writes all steps as comma separated values.
+   * 
+   * @param writer the writer
+   * @param header whether the names of the columns are written first (not
+   *               wanted when appending to the steps of another game)
+   * @throws IOException if the writer fails
+   */
+  public void writeCsv(Writer writer, boolean header) throws IOException {
+    if (header) {
+      writer.write(String.join(",", StepMetrics.COLUMNS));
+      writer.write('\n');
+    }
+    for (StepMetrics step : steps) {
+      writer.write(step.toCsv());
+      writer.write('\n');
+    }
+    writer.flush();
+  }
+
+  /**
+   * Writes all steps as JSON lines.
+   * 
+   * @param writer the writer
+   * @throws IOException if the writer fails
+   */
+  public void writeJsonLines(Writer writer) throws IOException {
+    for (StepMetrics step : steps) {
+      writer.write(step.toJson());
+      writer.write('\n');
+    }
+    writer.flush();
+  }
+}
@@ -0,0 +1,79 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * A set of cell indices which supports adding, removing and checking an index
+ * in constant time and iterating all indices in time linear to the size of the
+ * set (instead of the size of the field):
+ * 
+ * for (int k = 0; k < set.size(); k++) {
+ *   int index = set.get(k);
+ * }
+ * 
+ * Removing an index changes the order of the remaining ones.
+ * 
+ * @author tthielen
+ */
+public class IndexSet {
+  private int[] members; // the indices in the set (the first size ones)
+  private int[] positions; // the position of every index in members (-1 if not in the set)
+  private int size;
+
+  /**
+   * Constructor for the (empty) set.
+   * 
+   * @param capacity the highest index + 1
+   */
+  public IndexSet(int capacity) {
+    this.members = new int[capacity];
+    this.positions = new int[capacity];
+    Arrays.fill(positions, -1);
+    this.size = 0;
+  }
+
+  /**
+   * Adds the given index to the set.
+   * 
+   * @param index the index
+   */
+  public void add(int index) {
+    if (positions[index] < 0) {
+      positions[index] = size;
+      members[size++] = index;
+    }
+  }
+
+  /**
+   * Removes the given index from the set.
+   * 
+   * @param index the index
+   */
+  public void remove(int index) {
+    int position = positions[index];
+    if (position >= 0) {
+      int last = members[--size];
+      members[position] = last;
+      positions[last] = position;
+      positions[index] = -1;
+    }
+  }
+
+  public boolean contains(int index) {
+    return positions[index] >= 0;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the index at the given position of the set.
+   * 
+   * @param k the position (between 0 and size() - 1)
+   * @return the index
+   */
+  public int get(int k) {
+    return members[k];
+  }
+}
@@ -0,0 +1,69 @@
+package api;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The sparse counterpart of the IndexSet for cells addressed by a key (see
+ * ChunkedBoard.key) instead of an index: adding, removing and checking a key
+ * take constant time, and all keys can be iterated (or one chosen at random)
+ * without knowing the size of the field.
+ * 
+ * Removing a key changes the order of the remaining ones.
+ * 
+ * @author tthielen
+ */
+public class KeySet {
+  private long[] members = new long[16]; // the keys in the set (the first size ones)
+  private HashMap<Long, Integer> positions = new HashMap<Long, Integer>(); // the position of every key in members
+  private int size = 0;
+
+  /**
+   * Adds the given key to the set.
+   * 
+   * @param key the key
+   */
+  public void add(long key) {
+    if (!positions.containsKey(key)) {
+      if (size == members.length) {
+        members = Arrays.copyOf(members, size * 2);
+      }
+      positions.put(key, size);
+      members[size++] = key;
+    }
+  }
+
+  /**
+   * Removes the given key from the set.
+   * 
+   * @param key the key
+   */
+  public void remove(long key) {
+    Integer position = positions.remove(key);
+    if (position != null) {
+      long last = members[--size];
+      if (last != key) {
+        members[position] = last;
+        positions.put(last, position);
+      }
+    }
+  }
+
+  public boolean contains(long key) {
+    return positions.containsKey(key);
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the key at the given position of the set.
+   * 
+   * @param k the position (between 0 and size() - 1)
+   * @return the key
+   */
+  public long get(int k) {
+    return members[k];
+  }
+}
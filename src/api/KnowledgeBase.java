@@ -0,0 +1,167 @@
+package api;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * A knowledge base which persists over all steps of a game. Every cell of the
+ * field is a variable (its index + 1) which is true if the cell is a mine.
+ * 
+ * Instead of the constraints of the remaining covered neighbours, every clue
+ * constrains all neighbours of its cell, and uncovered cells as well as marked
+ * mines are added as unit facts. That way the knowledge only ever grows, so new
+ * knowledge is simply added to the solver, which keeps everything it has
+ * learned so far.
+ * 
+ * @author tthielen
+ */
+public class KnowledgeBase {
+  private ConstraintSolver solver;
+
+  /**
+   * Constructor which sets up the solver.
+   * 
+   * @param numOfCells the amount of cells of the field
+   * @param backend    the backend providing the solver
+   */
+  public KnowledgeBase(int numOfCells, SolverBackend backend) {
+    this.solver = backend.newSolver(numOfCells);
+  }
+
+  /**
+   * Adds the knowledge gained by uncovering a cell: the cell itself is no mine
+   * and exactly clue of its neighbours are mines.
+   * 
+   * @param cell           the uncovered cell
+   * @param neighbourTable the neighbours of all cells of the field
+   * @throws ContradictionException if the knowledge contradicts the knowledge
+   *                                base
+   */
+  public void addClue(Cell cell, NeighbourTable neighbourTable) throws ContradictionException {
+    addSafe(cell);
+    int index = cell.getIndex();
+    int[] variables = new int[neighbourTable.count(index)];
+    for (int k = neighbourTable.start(index); k < neighbourTable.end(index); k++) {
+      variables[k - neighbourTable.start(index)] = neighbourTable.getNeighbour(k) + 1;
+    }
+    solver.addExactly(variables, cell.getClue());
+  }
+
+  /**
+   * Adds the fact that the given cell is a mine.
+   * 
+   * @param cell the cell
+   * @throws ContradictionException if the fact contradicts the knowledge base
+   */
+  public void addMine(Cell cell) throws ContradictionException {
+    solver.addFact(variable(cell));
+  }
+
+  /**
+   * Adds the fact that the given cell is no mine.
+   * 
+   * @param cell the cell
+   * @throws ContradictionException if the fact contradicts the knowledge base
+   */
+  public void addSafe(Cell cell) throws ContradictionException {
+    solver.addFact(-variable(cell));
+  }
+
+  /**
+   * Sets the deadline after which the proofs throw a TimeoutException.
+   * 
+   * @param deadline the deadline
+   */
+  public void setDeadline(Deadline deadline) {
+    solver.setDeadline(deadline);
+  }
+
+  /**
+   * Checks whether the knowledge base is satisfiable (which it always should be)
+   * so that a model can be retrieved.
+   * 
+   * @return true, if the knowledge base is satisfiable
+   * @throws TimeoutException if the deadline has passed
+   */
+  public boolean isSatisfiable() throws TimeoutException {
+    return solver.isSatisfiable();
+  }
+
+  /**
+   * Returns the model found by the last satisfiable proof.
+   * 
+   * @return the model as an array of literals
+   */
+  public int[] model() {
+    return solver.model();
+  }
+
+  /**
+   * Proves (by contradiction) whether the given cell is definitely no mine.
+   * 
+   * @param cell the cell
+   * @return true, if KB ⊨ ¬c
+   * @throws TimeoutException if the deadline has passed
+   */
+  public boolean isSafe(Cell cell) throws TimeoutException {
+    return !solver.isSatisfiable(variable(cell));
+  }
+
+  /**
+   * Proves (by contradiction) whether the given cell is definitely a mine.
+   * 
+   * @param cell the cell
+   * @return true, if KB ⊨ c
+   * @throws TimeoutException if the deadline has passed
+   */
+  public boolean isMine(Cell cell) throws TimeoutException {
+    return !solver.isSatisfiable(-variable(cell));
+  }
+
+  /**
+   * Returns the amount of variables (including auxiliary variables of the
+   * encoding).
+   * 
+   * @return the amount of variables
+   */
+  public int getNumOfVariables() {
+    return solver.getNumOfVariables();
+  }
+
+  /**
+   * Returns the amount of constraints in the solver.
+   * 
+   * @return the amount of constraints
+   */
+  public int getNumOfConstraints() {
+    return solver.getNumOfConstraints();
+  }
+
+  /**
+   * Returns how many conflicts the solver ran into (over all proofs so far).
+   * 
+   * @return the amount of conflicts
+   */
+  public long getNumOfConflicts() {
+    return solver.getNumOfConflicts();
+  }
+
+  /**
+   * Returns how many assignments the solver propagated (over all proofs so far).
+   * 
+   * @return the amount of propagations
+   */
+  public long getNumOfPropagations() {
+    return solver.getNumOfPropagations();
+  }
+
+  /**
+   * Returns the variable of the given cell.
+   * 
+   * @param cell the cell
+   * @return the variable which is true if the cell is a mine
+   */
+  public int variable(Cell cell) {
+    return cell.getIndex() + 1;
+  }
+}
@@ -0,0 +1,139 @@
+package api;
+
+/**
+ * A histogram of durations (in ns) whose buckets grow exponentially, so that
+ * every recorded duration is kept with a relative precision of about 3% while
+ * the histogram itself has a fixed size. Percentiles are read from the buckets,
+ * the count, total, max, mean and standard deviation are exact.
+ * 
+ * @author tthielen
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 6; // values below 2^6 get a bucket each
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2; // buckets per doubling of the value
+
+  private long[] counts = new long[SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS];
+  private long count = 0; // the number of recorded durations
+  private long total = 0; // the sum of the recorded durations (in ns)
+  private long max = 0; // the longest recorded duration (in ns)
+  private double sumOfSquares = 0; // the sum of the squared durations (in ns^2)
+
+  /**
+   * Records a duration.
+   * 
+   * @param nanos the duration (in ns), negative durations are recorded as 0
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts[bucketOf(value)]++;
+    count++;
+    total += value;
+    max = Math.max(max, value);
+    sumOfSquares += (double) value * value;
+  }
+
+  /**
+   * Adds all durations of the given histogram to this one.
+   * 
+   * @param other the other histogram
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    count += other.count;
+    total += other.total;
+    max = Math.max(max, other.max);
+    sumOfSquares += other.sumOfSquares;
+  }
+
+  /**
+   * Returns the duration which the given percentage of the recorded durations
+   * doesn't exceed (the upper bound of its bucket, but at most the max).
+   * 
+   * @param percentile the percentage (between 0 and 100)
+   * @return the duration (in ns), 0 if nothing has been recorded
+   */
+  public long getPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(max, highestValueOf(i));
+      }
+    }
+    return max;
+  }
+
+  public long getCount() {
+    return this.count;
+  }
+
+  public long getTotal() {
+    return this.total;
+  }
+
+  public long getMax() {
+    return this.max;
+  }
+
+  /**
+   * Returns the average of the recorded durations.
+   * 
+   * @return the average (in ns), 0 if nothing has been recorded
+   */
+  public double getMean() {
+    return count == 0 ? 0 : (double) total / count;
+  }
+
+  /**
+   * Returns the sample standard deviation of the recorded durations.
+   * 
+   * @return the standard deviation (in ns), NaN if less than two durations have
+   *         been recorded
+   */
+  public double getStandardDeviation() {
+    if (count < 2) {
+      return Double.NaN;
+    }
+    double mean = getMean();
+    return Math.sqrt(Math.max(0, (sumOfSquares - count * mean * mean) / (count - 1)));
+  }
+
+  /**
+   * Returns the bucket of a value: below SUB_BUCKETS every value has its own
+   * bucket, above every doubling of the value is split into HALF_SUB_BUCKETS
+   * buckets.
+   * 
+   * @param value the value (not negative)
+   * @return the index of the bucket
+   */
+  private static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1); // value >> shift is in [32, 64)
+    return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >> shift) - HALF_SUB_BUCKETS;
+  }
+
+  /**
+   * Returns the highest value which falls into the given bucket.
+   * 
+   * @param bucket the index of the bucket
+   * @return the value
+   */
+  private static long highestValueOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+    long subBucket = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
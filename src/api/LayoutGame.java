@@ -0,0 +1,93 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * A fast oracle for games on a shared FieldLayout. It answers like an MSField
+ * read from the same file, but the clues are precomputed by the layout, the
+ * remaining safe cells are counted down (so solved() is O(1)) and the game can
+ * be reset for the next one without allocating anything.
+ * 
+ * @author tthielen
+ */
+public class LayoutGame implements MSGame {
+
+  private final FieldLayout layout;
+  private final int[] uf; // the clue of the cell with the index (-1 = covered)
+  private int remainingSafeCells; // how many safe cells are still covered
+
+  /**
+   * Constructor: Starts an entirely covered game on the given layout.
+   * 
+   * @param layout the mine layout
+   */
+  public LayoutGame(FieldLayout layout) {
+    this.layout = layout;
+    uf = new int[layout.size()];
+    reset();
+  }
+
+  /**
+   * Covers all cells again, so a new game can be played on the same layout.
+   */
+  public void reset() {
+    Arrays.fill(uf, -1);
+    remainingSafeCells = layout.size() - layout.getNumOfMines();
+  }
+
+  @Override
+  public int uncover(int x, int y) {
+    int index = x + y * layout.getNumOfCols();
+    if (layout.isMine(index)) {
+      return -1;
+    }
+    if (uf[index] < 0) {
+      uf[index] = layout.getClue(index);
+      remainingSafeCells--;
+    }
+    return uf[index];
+  }
+
+  @Override
+  public int getNumOfRows() {
+    return layout.getNumOfRows();
+  }
+
+  @Override
+  public int getNumOfCols() {
+    return layout.getNumOfCols();
+  }
+
+  @Override
+  public boolean solved() {
+    return remainingSafeCells == 0;
+  }
+
+  public long getNumOfMines() {
+    return layout.getNumOfMines();
+  }
+
+  public FieldLayout getLayout() {
+    return layout;
+  }
+
+  @Override
+  public String toString() {
+    StringBuffer sb = new StringBuffer("");
+    for (int y = 0; y < layout.getNumOfRows(); y++) {
+      for (int x = 0; x < layout.getNumOfCols(); x++) {
+        int index = x + y * layout.getNumOfCols();
+        if (layout.isMine(index)) {
+          sb.append('X');
+        } else if (uf[index] >= 0) {
+          sb.append(uf[index]);
+        } else {
+          sb.append('-');
+        }
+        sb.append(' ');
+      }
+      sb.append("\n");
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,210 @@
+package api;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * An oracle for huge boards whose mines are only generated when they're
+ * needed: the board is split into chunks of ChunkedBoard.CHUNK_SIZE squared
+ * cells, and the mines of a chunk are derived from the seed and the position
+ * of the chunk alone. So a chunk can be generated on its first use, dropped
+ * from the (bounded) cache and generated again identically later on.
+ * 
+ * Every chunk gets the same share of mines, so the total amount of mines (and
+ * therefore when the game is solved) is known without generating the board.
+ * Like the BoardGenerator, (0,0) and its neighbours are never mines.
+ * 
+ * Only the uncovered cells are stored (as bits per explored chunk), so the
+ * memory depends on the explored area instead of the size of the board.
+ * 
+ * @author tthielen
+ */
+public class LazyField implements MSGame {
+
+  private static final int CHUNK_BITS = ChunkedBoard.CHUNK_BITS;
+  private static final int CHUNK_SIZE = ChunkedBoard.CHUNK_SIZE;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int MAX_CACHED_CHUNKS = 4096; // how many generated chunks are kept at most
+
+  private final int numOfCols;
+  private final int numOfRows;
+  private final double density; // which share of the cells of every chunk are mines
+  private final long seed;
+
+  private final Map<Long, int[]> mineChunks; // the mines of the recently used chunks (one int per row)
+  private final HashMap<Long, int[]> uncoveredChunks = new HashMap<Long, int[]>(); // the uncovered cells
+  private final long numOfMines;
+  private long remainingSafeCells; // how many safe cells are still covered
+
+  /**
+   * Constructor: Starts an entirely covered game on a board which is generated
+   * on demand.
+   * 
+   * @param numOfCols
+   * @param numOfRows
+   * @param density   which share of the cells are mines (between 0 and 1)
+   * @param seed      the seed of the mines
+   */
+  public LazyField(int numOfCols, int numOfRows, double density, long seed) {
+    this.numOfCols = numOfCols;
+    this.numOfRows = numOfRows;
+    this.density = density;
+    this.seed = seed;
+    this.mineChunks = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+        return size() > MAX_CACHED_CHUNKS;
+      }
+    };
+
+    // all chunks but the ones in the last column and row are complete
+    int fullCols = numOfCols >> CHUNK_BITS;
+    int fullRows = numOfRows >> CHUNK_BITS;
+    int restCols = numOfCols & CHUNK_MASK;
+    int restRows = numOfRows & CHUNK_MASK;
+    long mines = (long) fullCols * fullRows * minesInChunk(CHUNK_SIZE, CHUNK_SIZE, false)
+        + (long) fullRows * minesInChunk(restCols, CHUNK_SIZE, false)
+        + (long) fullCols * minesInChunk(CHUNK_SIZE, restRows, false) + minesInChunk(restCols, restRows, false);
+    // the first chunk keeps (0,0) and its neighbours free
+    int firstCols = Math.min(CHUNK_SIZE, numOfCols);
+    int firstRows = Math.min(CHUNK_SIZE, numOfRows);
+    mines += minesInChunk(firstCols, firstRows, true) - minesInChunk(firstCols, firstRows, false);
+    this.numOfMines = mines;
+    this.remainingSafeCells = (long) numOfCols * numOfRows - numOfMines;
+  }
+
+  /**
+   * Returns how many mines a chunk of the given dimensions contains.
+   * 
+   * @param cols  the amount of columns of the chunk
+   * @param rows  the amount of rows of the chunk
+   * @param first whether it's the chunk containing (0,0)
+   * @return the amount of mines
+   */
+  private int minesInChunk(int cols, int rows, boolean first) {
+    int candidates = cols * rows;
+    if (first) {
+      candidates -= Math.min(2, cols) * Math.min(2, rows);
+    }
+    return Math.min(candidates, (int) Math.round(density * cols * rows));
+  }
+
+  /**
+   * Returns the mines of the given chunk, generating them if they aren't
+   * cached.
+   * 
+   * @param cx the x-coordinate of the chunk
+   * @param cy the y-coordinate of the chunk
+   * @return the mines of the chunk (bit x of row y is set for a mine)
+   */
+  private int[] mines(int cx, int cy) {
+    long chunkKey = ChunkedBoard.key(cx, cy);
+    int[] mines = mineChunks.get(chunkKey);
+    if (mines == null) {
+      mines = generate(cx, cy);
+      mineChunks.put(chunkKey, mines);
+    }
+    return mines;
+  }
+
+  /**
+   * Generates the mines of the given chunk via a partial Fisher-Yates shuffle
+   * of its cells, seeded by the seed of the field and the position of the
+   * chunk.
+   * 
+   * @param cx the x-coordinate of the chunk
+   * @param cy the y-coordinate of the chunk
+   * @return the mines of the chunk (bit x of row y is set for a mine)
+   */
+  private int[] generate(int cx, int cy) {
+    int cols = Math.min(CHUNK_SIZE, numOfCols - (cx << CHUNK_BITS));
+    int rows = Math.min(CHUNK_SIZE, numOfRows - (cy << CHUNK_BITS));
+    boolean first = cx == 0 && cy == 0;
+    Random random = new Random(seed * 0x9E3779B97F4A7C15L + ChunkedBoard.key(cx, cy));
+
+    int[] candidates = new int[cols * rows];
+    int numOfCandidates = 0;
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) {
+        if (!first || x > 1 || y > 1) {
+          candidates[numOfCandidates++] = (y << CHUNK_BITS) | x;
+        }
+      }
+    }
+    int[] mines = new int[CHUNK_SIZE];
+    int mineCount = minesInChunk(cols, rows, first);
+    for (int i = 0; i < mineCount; i++) {
+      int j = i + random.nextInt(numOfCandidates - i);
+      int mine = candidates[j];
+      candidates[j] = candidates[i];
+      candidates[i] = mine;
+      mines[mine >> CHUNK_BITS] |= 1 << (mine & CHUNK_MASK);
+    }
+    return mines;
+  }
+
+  private boolean isMine(int x, int y) {
+    return (mines(x >> CHUNK_BITS, y >> CHUNK_BITS)[y & CHUNK_MASK] & (1 << (x & CHUNK_MASK))) != 0;
+  }
+
+  @Override
+  public int uncover(int x, int y) {
+    if (isMine(x, y)) {
+      return -1;
+    }
+    int num = 0;
+    for (int j = Math.max(0, y - 1); j <= Math.min(numOfRows - 1, y + 1); j++) {
+      for (int i = Math.max(0, x - 1); i <= Math.min(numOfCols - 1, x + 1); i++) {
+        if ((i != x || j != y) && isMine(i, j)) {
+          num++;
+        }
+      }
+    }
+    int[] uncovered = uncoveredChunks.computeIfAbsent(ChunkedBoard.key(x >> CHUNK_BITS, y >> CHUNK_BITS),
+        k -> new int[CHUNK_SIZE]);
+    int bit = 1 << (x & CHUNK_MASK);
+    if ((uncovered[y & CHUNK_MASK] & bit) == 0) {
+      uncovered[y & CHUNK_MASK] |= bit;
+      remainingSafeCells--;
+    }
+    return num;
+  }
+
+  @Override
+  public int getNumOfRows() {
+    return numOfRows;
+  }
+
+  @Override
+  public int getNumOfCols() {
+    return numOfCols;
+  }
+
+  @Override
+  public boolean solved() {
+    return remainingSafeCells == 0;
+  }
+
+  public long getNumOfMines() {
+    return numOfMines;
+  }
+
+  /**
+   * Returns how many safe cells are still covered.
+   * 
+   * @return the amount of covered safe cells
+   */
+  public long getRemainingSafeCells() {
+    return remainingSafeCells;
+  }
+
+  @Override
+  public String toString() {
+    return "Lazy field " + numOfCols + "x" + numOfRows + " (" + numOfMines + " mines, " + remainingSafeCells
+        + " safe cells covered, " + uncoveredChunks.size() + " chunks explored)";
+  }
+}
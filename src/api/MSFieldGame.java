@@ -0,0 +1,45 @@
+package api;
+
+/**
+ * Lets an agent play on the original MSField (which mustn't be changed)
+ * through the MSGame interface.
+ * 
+ * @author tthielen
+ */
+public class MSFieldGame implements MSGame {
+
+  private final MSField field;
+
+  public MSFieldGame(MSField field) {
+    this.field = field;
+  }
+
+  public MSField getField() {
+    return field;
+  }
+
+  @Override
+  public int uncover(int x, int y) {
+    return field.uncover(x, y);
+  }
+
+  @Override
+  public int getNumOfRows() {
+    return field.getNumOfRows();
+  }
+
+  @Override
+  public int getNumOfCols() {
+    return field.getNumOfCols();
+  }
+
+  @Override
+  public boolean solved() {
+    return field.solved();
+  }
+
+  @Override
+  public String toString() {
+    return field.toString();
+  }
+}
@@ -0,0 +1,42 @@
+package api;
+
+/**
+ * The secret Minesweeper field as seen by an agent: it can only be uncovered
+ * cell by cell and asked whether it's solved. Implemented by the original
+ * MSField (via MSFieldGame) as well as by games on a parsed FieldLayout.
+ * 
+ * @author tthielen
+ */
+public interface MSGame {
+
+  /**
+   * Uncovers a position x,y and returns the number of mines in the neighborhood.
+   * 
+   * @param x
+   * @param y
+   * @return Number of mines in the neighborhood or -1 if the current position
+   *         contains a mine.
+   */
+  public int uncover(int x, int y);
+
+  /**
+   * Returns the number of rows of this field.
+   * 
+   * @return Number of rows.
+   */
+  public int getNumOfRows();
+
+  /**
+   * Returns the number of columns of this field.
+   * 
+   * @return Number of columns.
+   */
+  public int getNumOfCols();
+
+  /**
+   * Returns whether the game is solved.
+   * 
+   * @return True, is all safe squares got uncovered.
+   */
+  public boolean solved();
+}
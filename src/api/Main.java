@@ -1,6 +1,17 @@
 package api;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The Main class which is used to conduct experiments on the given fields.
@@ -9,39 +20,44 @@ import java.text.DecimalFormat;
  */
 public class Main {
 
-  private static final double[] expectedRate = { 100, 83.7, 100, 100, 100, 100, 100, 100, 50.6, 75.3, 69, 100, 100, 100,
-      100, 51.2, 67.8, 61.7, 16.3, 6, 74, 66, 14, 100 };
-
-  private static final double[] expectedAvgDuration = { 0.001, 0.004, 0.005, 0.005, 0.008, 0.009, 0.01, 0.012, 0.023,
-      0.082, 0.073, 0.036, 0.048, 0.031, 0.281, 0.451, 0.332, 0.439, 0.169, 1.876, 1.178, 1.769, 2.451, 1.548 };
-
-  public static final String[] fields = { // File Name | Index | Iterations | Success Rate | Average Duration on Success
-      "baby1-3x3-0.txt", // 0 | 1000 | 100% | 0,001s
-      "baby2-3x3-1.txt", // 1 | 1000 | 83,7% | 0,004s
-      "baby3-5x5-1.txt", // 2 | 1000 | 100% | 0,005s
-      "baby4-5x5-3.txt", // 3 | 1000 | 100% | 0,005s
-      "baby5-5x5-5.txt", // 4 | 1000 | 100% | 0,008s
-      "baby6-7x7-1.txt", // 5 | 1000 | 100% | 0,009s
-      "baby7-7x7-3.txt", // 6 | 1000 | 100% | 0,01s
-      "baby8-7x7-5.txt", // 7 | 1000 | 100% | 0,012s
-      "baby9-7x7-10.txt", // 8 | 1000 | 50,6% | 0,023s
-      "anfaenger1-9x9-10.txt", // 9 | 1000 | 75,3% | 0,082s
-      "anfaenger2-9x9-10.txt", // 10 | 1000 | 69% | 0,073s
-      "anfaenger3-9x9-10.txt", // 11 | 1000 | 100% | 0,036s
-      "anfaenger4-9x9-10.txt", // 12 | 1000 | 100% | 0,048s
-      "anfaenger5-9x9-10.txt", // 13 | 1000 | 100% | 0,031s
-      "fortgeschrittene1-16x16-40.txt", // 14 | 1000 | 100% | 0,281s
-      "fortgeschrittene2-16x16-40.txt", // 15 | 1000 | 51,2% | 0,451s
-      "fortgeschrittene3-16x16-40.txt", // 16 | 1000 | 67,8% | 0,332s
-      "fortgeschrittene4-16x16-40.txt", // 17 | 1000 | 61,7% | 0,439s
-      "fortgeschrittene5-16x16-40.txt", // 18 | 1000 | 16,3% | 0,169s
-      "profi1-30x16-99.txt", // 19 | 100 | 6% | 1,876s
-      "profi2-30x16-99.txt", // 20 | 100 | 74% | 1,178s
-      "profi3-30x16-99.txt", // 21 | 100 | 66% | 1,769s
-      "profi4-30x16-99.txt", // 22 | 100 | 14% | 2,451s
-      "profi5-30x16-99.txt" // 23 | 100 | 100% | 1,548s
+  public static final String[] fields = { // File Name | Index
+      "baby1-3x3-0.txt", // 0
+      "baby2-3x3-1.txt", // 1
+      "baby3-5x5-1.txt", // 2
+      "baby4-5x5-3.txt", // 3
+      "baby5-5x5-5.txt", // 4
+      "baby6-7x7-1.txt", // 5
+      "baby7-7x7-3.txt", // 6
+      "baby8-7x7-5.txt", // 7
+      "baby9-7x7-10.txt", // 8
+      "anfaenger1-9x9-10.txt", // 9
+      "anfaenger2-9x9-10.txt", // 10
+      "anfaenger3-9x9-10.txt", // 11
+      "anfaenger4-9x9-10.txt", // 12
+      "anfaenger5-9x9-10.txt", // 13
+      "fortgeschrittene1-16x16-40.txt", // 14
+      "fortgeschrittene2-16x16-40.txt", // 15
+      "fortgeschrittene3-16x16-40.txt", // 16
+      "fortgeschrittene4-16x16-40.txt", // 17
+      "fortgeschrittene5-16x16-40.txt", // 18
+      "profi1-30x16-99.txt", // 19
+      "profi2-30x16-99.txt", // 20
+      "profi3-30x16-99.txt", // 21
+      "profi4-30x16-99.txt", // 22
+      "profi5-30x16-99.txt" // 23
   };
 
+  private static boolean fastOracle = true; // whether the games are played on a LayoutGame instead of an MSField
+  private static SolverBackend backend; // the solvers the agents prove their cells with
+  private static long stepTimeBudget; // how long the proofs of a step may take (in ms, 0 = unbounded)
+  private static long gameTimeBudget; // how long the proofs of a game may take (in ms, 0 = unbounded)
+  private static boolean knownNumOfMines; // whether the agents are told how many mines a field has
+  private static Map<String, FieldStatistics> baselines; // the statistics the results are compared to (by field)
+  private static double slowdownTolerance; // the share by which the won games may get slower than the baseline
+  private static Writer metricsWriter; // the metrics of all steps are written to (null = not written)
+  private static boolean metricsAsJsonLines; // whether the metrics are written as JSON lines (or as CSV)
+  private static boolean metricsHeaderWritten; // whether the names of the CSV columns have been written
+
   /**
    * Main method which needs to be run to conduct the experiments.
    * 
@@ -54,16 +70,302 @@ public class Main {
     // Test a SPECIFIC field (checkAllFields = false) (CHANGE VALUES)
     int iterations = 1000;
     int field = 16;
+    // How many games are played in parallel (1 = sequentially) and whether they
+    // run on virtual threads (Java 21+) (CHANGE VALUES)
+    int threads = Runtime.getRuntime().availableProcessors();
+    boolean virtualThreads = false;
+    // The seed all games are derived from (same seed = same results) (CHANGE
+    // VALUE)
+    long seed = 42;
+    // Whether the games are played on the fast oracle (or the original MSField)
+    // (CHANGE VALUE)
+    fastOracle = true;
+    // The solvers the cells are proven with: sat4j or the native propagation
+    // engine (CHANGE VALUE)
+    backend = new Sat4jBackend(new NativeCardinalityEncoding());
+    // How long the proofs of a step resp. a game may take before the agent acts
+    // on what it has proven so far (in ms, 0 = unbounded) (CHANGE VALUES)
+    stepTimeBudget = 0;
+    gameTimeBudget = 0;
+    // Whether the agents are told how many mines a field has in total (on both
+    // oracles alike), which is public like in every game of minesweeper (its
+    // file name says it as well). Otherwise the agents estimate the density of
+    // the mines when they have to guess. (CHANGE VALUE)
+    knownNumOfMines = true;
+    // The results file the baselines are read from (null = no comparison), the
+    // share by which the won games may get slower than their baseline before a
+    // significant slowdown is flagged, whether a significant regression ends
+    // the run with exit status 1 (to gate a change in scripts) and the results
+    // file the results of this run are written to, replacing the rows of the
+    // solved fields (null = not written). A baseline is only comparable if it
+    // was recorded by this agent with the same settings on the same machine.
+    // (CHANGE VALUES)
+    String baselineFile = null;
+    slowdownTolerance = 0.05;
+    boolean gate = false;
+    String resultsFile = null;
+    // The file the metrics of every step of all games are written to (null = not
+    // written), in order of the fields and iterations (every game starts at step
+    // 1 again), and whether as JSON lines instead of CSV (CHANGE VALUES)
+    String metricsFile = null;
+    metricsAsJsonLines = false;
+
+    baselines = baselineFile != null ? readResults(baselineFile) : new LinkedHashMap<String, FieldStatistics>();
+    LinkedHashMap<String, FieldStatistics> results = new LinkedHashMap<String, FieldStatistics>();
+    try (Writer writer = metricsFile != null ? new FileWriter(metricsFile) : null) {
+      metricsWriter = writer;
+      if (checkAllFields) {
+        ExecutorService executor = createExecutor(threads, virtualThreads);
+        for (int i = startAt; i < fields.length; i++) {
+          int it = i < 14 ? 1000 : 100;
+          FieldStatistics statistics = solveFieldParallel(i, it, executor, seed);
+          if (statistics != null) {
+            results.put(fields[i], statistics);
+          }
+          System.out.println("\n------------------------------------------");
+        }
+        executor.shutdown();
+      } else {
+        results.put(fields[field], solveField(field, iterations, true, seed));
+      }
+    } catch (IOException e) {
+      System.out.println("Error: Couldn't write the metrics file " + metricsFile + " (" + e.getMessage() + ")!");
+    }
+
+    if (resultsFile != null) {
+      writeResults(resultsFile, results);
+    }
+    if (!printRegressions(results) && gate) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Reads the statistics of a results file.
+   * 
+   * @param path the path of the results file
+   * @return the statistics by field (empty if the file can't be read)
+   */
+  private static LinkedHashMap<String, FieldStatistics> readResults(String path) {
+    try {
+      return ResultsFile.read(path);
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Error: Couldn't read the results file " + path + " (" + e.getMessage() + ")!");
+      return new LinkedHashMap<String, FieldStatistics>();
+    }
+  }
+
+  /**
+   * Writes the given statistics to a results file, keeping the rows of the
+   * fields which weren't solved in this run.
+   * 
+   * @param path    the path of the results file
+   * @param results the statistics by field
+   */
+  private static void writeResults(String path, Map<String, FieldStatistics> results) {
+    LinkedHashMap<String, FieldStatistics> merged = readResults(path);
+    merged.putAll(results);
+    try {
+      ResultsFile.write(path, merged);
+      System.out.println("\nResults written to " + path);
+    } catch (IOException e) {
+      System.out.println("Error: Couldn't write the results file " + path + " (" + e.getMessage() + ")!");
+    }
+  }
+
+  /**
+   * Writes the metrics of every step of a game to the metrics file (if any). On
+   * failure, no further metrics are written.
+   * 
+   * @param metrics the metrics of the game
+   */
+  private static void writeMetrics(GameMetrics metrics) {
+    if (metricsWriter == null) {
+      return;
+    }
+    try {
+      if (metricsAsJsonLines) {
+        metrics.writeJsonLines(metricsWriter);
+      } else {
+        metrics.writeCsv(metricsWriter, !metricsHeaderWritten);
+        metricsHeaderWritten = true;
+      }
+    } catch (IOException e) {
+      System.out.println("Error: Couldn't write the metrics (" + e.getMessage() + ")!");
+      metricsWriter = null;
+    }
+  }
+
+  /**
+   * Displays all fields whose success rate dropped or whose won games got
+   * slower significantly compared to their baselines.
+   * 
+   * @param results the statistics by field
+   * @return whether no regression was found
+   */
+  private static boolean printRegressions(Map<String, FieldStatistics> results) {
+    ArrayList<String> regressions = new ArrayList<String>();
+    for (FieldStatistics statistics : results.values()) {
+      FieldStatistics baseline = baselines.get(statistics.getField());
+      if (baseline == null) {
+        continue;
+      }
+      BaselineComparison comparison = new BaselineComparison(baseline, statistics);
+      if (comparison.isRateDrop()) {
+        regressions.add(statistics.getField() + ": success rate dropped");
+      }
+      if (comparison.isSlowdown(slowdownTolerance)) {
+        regressions.add(statistics.getField() + ": average duration (on success) increased");
+      }
+    }
+    if (regressions.isEmpty()) {
+      return true;
+    }
+    System.out.println("\nSignificant regressions compared to the baselines:");
+    for (String regression : regressions) {
+      System.out.println("  " + regression);
+    }
+    return false;
+  }
+
+  /**
+   * Creates the executor the games are played on.
+   * 
+   * @param threads        how many games are played in parallel (ignored for
+   *                       virtual threads)
+   * @param virtualThreads whether every game runs on its own virtual thread
+   * @return the executor
+   */
+  private static ExecutorService createExecutor(int threads, boolean virtualThreads) {
+    if (virtualThreads) {
+      try {
+        // looked up reflectively, as virtual threads need Java 21+
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+        System.out.println("Virtual threads aren't available, using " + threads + " platform threads instead.");
+      }
+    }
+    return Executors.newFixedThreadPool(Math.max(1, threads));
+  }
+
+  /**
+   * Starts a new game on the given field, either on the fast oracle (whose field
+   * file is only parsed once) or on the original MSField.
+   * 
+   * @param field the minesweeper field
+   * @return the game
+   */
+  private static MSGame newGame(int field) {
+    if (fastOracle) {
+      return FieldLayout.load("fields/" + fields[field]).newGame();
+    }
+    return new MSFieldGame(new MSField("fields/" + fields[field]));
+  }
+
+  /**
+   * Creates the agent which plays the given game with the selected backend and
+   * time budgets.
+   * 
+   * @param field the minesweeper field
+   * @param game  the game
+   * @param seed  the seed of the agent's random decisions
+   * @return the agent
+   */
+  private static SatMSAgent newAgent(int field, MSGame game, long seed) {
+    SatMSAgent agent = new SatMSAgent(game, new Random(seed));
+    agent.setSolverBackend(backend);
+    agent.setStepTimeBudget(stepTimeBudget);
+    agent.setGameTimeBudget(gameTimeBudget);
+    if (knownNumOfMines) {
+      agent.setNumOfMines(FieldLayout.load("fields/" + fields[field]).getNumOfMines());
+    }
+    // the durations of the steps are reported as percentiles
+    agent.activateMetrics();
+    return agent;
+  }
+
+  /**
+   * Returns the seed of a single game, which only depends on the given values
+   * (and not on the thread the game is played on).
+   * 
+   * @param seed      the seed all games are derived from
+   * @param field     the minesweeper field
+   * @param iteration the iteration of the game
+   * @return the seed of the game
+   */
+  private static long gameSeed(long seed, int field, int iteration) {
+    return (seed * 31 + field) * 1000003 + iteration;
+  }
+
+  /**
+   * Plays a single game.
+   * 
+   * @param field     the minesweeper field
+   * @param iteration the iteration of the game
+   * @param seed      the seed all games are derived from
+   * @return the outcome and durations of the game
+   */
+  private static GameResult playGame(int field, int iteration, long seed) {
+    long start = System.nanoTime();
+    SatMSAgent agent = newAgent(field, newGame(field), gameSeed(seed, field, iteration));
+    boolean solved = agent.solve();
+    return new GameResult(solved, System.nanoTime() - start, agent.getMetrics());
+  }
+
+  /**
+   * Solves a given field a given amount of times, distributing the iterations
+   * over the given executor. Every game gets its own seeded random int
+   * generator, so the results are the same as with solveField.
+   * 
+   * @param field      the minesweeper field
+   * @param iterations how many times the field should be solved
+   * @param executor   the executor the games are played on
+   * @param seed       the seed all games are derived from
+   * @return the statistics of the finished iterations of the field (null if
+   *         interrupted)
+   */
+  private static FieldStatistics solveFieldParallel(int field, int iterations, ExecutorService executor, long seed) {
+    System.out.println("\nSolving field " + fields[field]);
+    long start = System.currentTimeMillis();
+    ArrayList<Future<GameResult>> games = new ArrayList<Future<GameResult>>();
+    for (int i = 0; i < iterations; i++) {
+      int iteration = i;
+      games.add(executor.submit(() -> playGame(field, iteration, seed)));
+    }
 
-    if (checkAllFields) {
-      for (int i = startAt; i < fields.length; i++) {
-        int it = i < 14 ? 1000 : 100;
-        solveField(i, it, false);
-        System.out.println("\n------------------------------------------");
+    int success = 0;
+    int finished = 0; // failed iterations are left out of the statistics
+    Latencies latencies = new Latencies();
+    // collect the results in order of the iterations
+    for (int i = 0; i < iterations; i++) {
+      try {
+        GameResult result = games.get(i).get();
+        finished++;
+        if (result.solved) {
+          success++;
+        }
+        latencies.record(result);
+        writeMetrics(result.metrics);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        System.out.println("\nInterrupted while waiting for the games!");
+        return null;
+      } catch (ExecutionException e) {
+        System.out.println("\nIteration " + i + " failed!");
+        e.printStackTrace();
+      }
+      if (finished > 0) {
+        printProgress(field, finished, iterations, success, latencies.wonGames);
       }
-    } else {
-      solveField(field, iterations, true);
     }
+    System.out.print("\rAll iterations calculated (in " + (System.currentTimeMillis() - start) + "ms).");
+    if (finished < iterations) {
+      System.out.print(" " + (iterations - finished) + " of them failed and are left out.");
+    }
+
+    FieldStatistics statistics = new FieldStatistics(fields[field], finished, latencies.wonGames);
+    printStatistics(statistics, latencies);
+    return statistics;
   }
 
   /**
@@ -73,30 +375,32 @@ public class Main {
    * @param iterations        how many times the field should be solved
    * @param displayIterations whether the outcome of the iterations should be
    *                          displayed
+   * @param seed              the seed all games are derived from
+   * @return the statistics of the field
    */
-  private static void solveField(int field, int iterations, boolean displayIterations) {
+  private static FieldStatistics solveField(int field, int iterations, boolean displayIterations, long seed) {
     System.out.println("\nSolving field " + fields[field]);
     int success = 0;
-    long duration = 0;
+    Latencies latencies = new Latencies();
+    MSGame game = null;
     // Solve the field as often as iterations states
     for (int i = 0; i < iterations; i++) {
       if (!displayIterations) {
         if (i < iterations - 1) {
-          double rate = 100 * (double) success / (double) i;
-          double avgDuration = ((double) duration / (double) success) / 1000;
-          DecimalFormat dfr = new DecimalFormat("#.#");
-          DecimalFormat dfa = new DecimalFormat("#.###");
-          System.out.print("\rIteration " + i + "/" + iterations + "\tCurrent success: " + dfr.format(rate) + "% ("
-              + dfr.format(expectedRate[field]) + "%)" + "\tØ duration: " + dfa.format(avgDuration) + "s ("
-              + dfa.format(expectedAvgDuration[field]) + "s)   ");
+          printProgress(field, i, iterations, success, latencies.wonGames);
         } else {
           System.out.print("\rAll iterations calculated.");
         }
       }
-      long start = System.currentTimeMillis();
+      long start = System.nanoTime();
 
-      MSField f = new MSField("fields/" + fields[field]);
-      MSAgent agent = new SatMSAgent(f);
+      // the fast oracle is reused for all iterations
+      if (game instanceof LayoutGame) {
+        ((LayoutGame) game).reset();
+      } else {
+        game = newGame(field);
+      }
+      SatMSAgent agent = newAgent(field, game, gameSeed(seed, field, i));
 
       // to see what happens in the first iteration
       if (displayIterations) {
@@ -111,49 +415,168 @@ public class Main {
         System.out.println("\nIteration " + i + ": ");
       }
       boolean solved = agent.solve();
+      GameResult result = new GameResult(solved, System.nanoTime() - start, agent.getMetrics());
+      latencies.record(result);
+      writeMetrics(result.metrics);
       if (solved) {
         if (displayIterations) {
           System.out.println("Success!");
         }
         success++;
-        duration += (System.currentTimeMillis() - start);
       } else {
         if (displayIterations) {
           System.out.println("BOOM!");
         }
       }
       if (displayIterations) {
-        System.out.println("Duration: " + (System.currentTimeMillis() - start) + "ms");
+        System.out.println("Duration: " + new DecimalFormat("#.###").format(result.nanos / 1e6) + "ms");
       }
     }
 
-    // Display the calculated values of success rate and average duration on success
-
-    System.out.println("\n\nStatistics for " + iterations + " iterations of field " + fields[field] + ":");
+    FieldStatistics statistics = new FieldStatistics(fields[field], iterations, latencies.wonGames);
+    printStatistics(statistics, latencies);
+    return statistics;
+  }
 
-    double rate = 100 * (double) success / (double) iterations;
-    double avgDuration = ((double) duration / (double) success) / 1000;
+  /**
+   * Displays the current success rate and average duration on success (and
+   * those of the baseline).
+   * 
+   * @param field      the minesweeper field
+   * @param i          how many iterations are finished
+   * @param iterations how many times the field should be solved
+   * @param success    how many of the finished iterations were solved
+   * @param wonGames   the durations of the solved iterations
+   */
+  private static void printProgress(int field, int i, int iterations, int success, LatencyHistogram wonGames) {
+    double rate = 100 * (double) success / (double) i;
+    double avgDuration = wonGames.getMean() / 1e9;
     DecimalFormat dfr = new DecimalFormat("#.#");
     DecimalFormat dfa = new DecimalFormat("#.###");
+    FieldStatistics baseline = baselines.get(fields[field]);
+    System.out.print("\rIteration " + i + "/" + iterations + "\tCurrent success: " + dfr.format(rate) + "%"
+        + (baseline != null ? " (" + dfr.format(baseline.getSuccessRate()) + "%)" : "") + "\tØ duration: "
+        + dfa.format(avgDuration) + "s" + (baseline != null ? " (" + dfa.format(baseline.getAvgDuration()) + "s)" : "")
+        + "   ");
+  }
+
+  /**
+   * Displays the calculated values of success rate and average duration on
+   * success with their 95% confidence intervals and compares them to the
+   * baseline of the field.
+   * 
+   * @param statistics the statistics of the field
+   * @param latencies  the durations of the games and their steps
+   */
+  private static void printStatistics(FieldStatistics statistics, Latencies latencies) {
+    System.out.println("\n\nStatistics for " + statistics.getIterations() + " iterations of field "
+        + statistics.getField() + ":");
 
-    System.out.println("\nSuccess rate: " + dfr.format(rate) + "%");
-    double rateDiff = rate - expectedRate[field];
-    if (rateDiff > 0) {
-      System.out.println("Difference to expected rate = +" + (dfr.format(rateDiff)) + "% (Expected: "
-          + dfr.format(expectedRate[field]) + "%)");
-    } else {
-      System.out.println("Difference to expected rate = " + (dfr.format(rateDiff)) + "% (Expected: "
-          + dfr.format(expectedRate[field]) + "%)");
-    }
-
-    System.out.println("\nAverage duration (on success): " + dfa.format(avgDuration) + "s");
-    double avgDurationDiff = avgDuration - expectedAvgDuration[field];
-    if (avgDurationDiff > 0) {
-      System.out.println("Difference to expected average duration = +" + (dfa.format(avgDurationDiff)) + "s (Expected: "
-          + dfa.format(expectedAvgDuration[field]) + "s)");
-    } else {
-      System.out.println("Difference to expected average duration = " + (dfa.format(avgDurationDiff)) + "s (Expected: "
-          + dfa.format(expectedAvgDuration[field]) + "s)");
+    DecimalFormat dfr = new DecimalFormat("#.#");
+    DecimalFormat dfa = new DecimalFormat("#.######");
+    double[] rateInterval = BaselineComparison.wilsonInterval(statistics.getSuccesses(), statistics.getIterations());
+    System.out.println("\nSuccess rate: " + dfr.format(statistics.getSuccessRate()) + "% (95% CI: "
+        + dfr.format(100 * rateInterval[0]) + "% to " + dfr.format(100 * rateInterval[1]) + "%)");
+    FieldStatistics baseline = baselines.get(statistics.getField());
+    BaselineComparison comparison = baseline != null ? new BaselineComparison(baseline, statistics) : null;
+    if (comparison != null) {
+      System.out.println("Difference to baseline rate = " + signed(dfr, comparison.getRateDifference()) + "% (95% CI: "
+          + signed(dfr, comparison.getRateLower()) + "% to " + signed(dfr, comparison.getRateUpper())
+          + "%) (Baseline: " + dfr.format(baseline.getSuccessRate()) + "% of " + baseline.getIterations() + ")"
+          + (comparison.isRateDrop() ? " -> significant drop!" : ""));
+    }
+
+    double durationMargin = BaselineComparison.durationMargin(statistics);
+    System.out.println("\nAverage duration (on success): " + dfa.format(statistics.getAvgDuration()) + "s"
+        + (Double.isNaN(durationMargin) ? "" : " (95% CI: ±" + dfa.format(durationMargin) + "s)"));
+    if (comparison != null && baseline.getSuccesses() > 0 && statistics.getSuccesses() > 0) {
+      System.out.println("Difference to baseline average duration = "
+          + signed(dfa, comparison.getDurationDifference()) + "s"
+          + (Double.isNaN(comparison.getDurationMargin()) ? " (no 95% CI without the spread of both runs)"
+              : " (95% CI: ±" + dfa.format(comparison.getDurationMargin()) + "s)")
+          + " (Baseline: " + dfa.format(baseline.getAvgDuration()) + "s)"
+          + (comparison.isSlowdown(slowdownTolerance) ? " -> significant slowdown!" : ""));
+    }
+
+    printLatencies(latencies);
+  }
+
+  /**
+   * Formats a difference with its sign.
+   * 
+   * @param df    the format of the absolute value
+   * @param value the difference
+   * @return the formatted difference
+   */
+  private static String signed(DecimalFormat df, double value) {
+    if (df.format(Math.abs(value)).equals(df.format(0))) {
+      return df.format(0);
+    }
+    return (value > 0 ? "+" : "") + df.format(value);
+  }
+
+  /**
+   * Displays the percentiles of the durations of the won and lost games and of
+   * their steps, which show the long tail hidden by the average duration.
+   * 
+   * @param latencies the durations of the games and their steps
+   */
+  private static void printLatencies(Latencies latencies) {
+    DecimalFormat df = new DecimalFormat("#,##0.###");
+    System.out.println("\nLatencies (in ms):");
+    System.out.println(String.format("%-22s%8s%12s%12s%12s%12s%12s", "", "count", "p50", "p90", "p99", "p99.9", "max"));
+    String[] names = { "Won games", "Lost games", "Steps of won games", "Steps of lost games" };
+    LatencyHistogram[] histograms = { latencies.wonGames, latencies.lostGames, latencies.wonSteps,
+        latencies.lostSteps };
+    for (int i = 0; i < names.length; i++) {
+      LatencyHistogram histogram = histograms[i];
+      String row = String.format("%-22s%8d", names[i], histogram.getCount());
+      for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+        row += String.format("%12s", df.format(histogram.getPercentile(percentile) / 1e6));
+      }
+      row += String.format("%12s", df.format(histogram.getMax() / 1e6));
+      System.out.println(row);
+    }
+  }
+
+  /**
+   * The outcome of a single game together with the durations of the game and of
+   * every step of it.
+   */
+  private static class GameResult {
+    private boolean solved; // whether the game was solved
+    private long nanos; // the duration of the game (in ns)
+    private LatencyHistogram steps = new LatencyHistogram(); // the durations of the steps (in ns)
+    private GameMetrics metrics; // the metrics of every step
+
+    private GameResult(boolean solved, long nanos, GameMetrics metrics) {
+      this.solved = solved;
+      this.nanos = nanos;
+      this.metrics = metrics;
+      for (StepMetrics step : metrics.getSteps()) {
+        steps.record(step.get(StepMetrics.STEP_NANOS));
+      }
+    }
+  }
+
+  /**
+   * The durations of all games of a field and of their steps, separated into won
+   * and lost games.
+   */
+  private static class Latencies {
+    private LatencyHistogram wonGames = new LatencyHistogram();
+    private LatencyHistogram lostGames = new LatencyHistogram();
+    private LatencyHistogram wonSteps = new LatencyHistogram();
+    private LatencyHistogram lostSteps = new LatencyHistogram();
+
+    private void record(GameResult result) {
+      if (result.solved) {
+        wonGames.record(result.nanos);
+        wonSteps.add(result.steps);
+      } else {
+        lostGames.record(result.nanos);
+        lostSteps.add(result.steps);
+      }
     }
   }
 }
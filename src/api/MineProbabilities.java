@@ -0,0 +1,676 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Calculates the probability of every covered cell to be a mine, so the agent
+ * can guess the cell with the lowest risk instead of a random one.
+ * 
+ * The models of every frontier component are counted (grouped by their amount
+ * of mines) by a dynamic program over the variables of the component: after
+ * assigning the first v variables, only the amount of mines of every constraint
+ * which is still open (has assigned and unassigned variables) matters for the
+ * rest, so all partial models which agree on these amounts are counted
+ * together. A component with too many open constraints at once isn't rated,
+ * its cells take their share of the mines like the cells off the frontier.
+ * 
+ * The components are then combined via the remaining amount of mines: a
+ * combination of models with K mines in total leaves (remaining - K) mines for
+ * the u covered cells off the frontier, which is possible in binomial(u,
+ * remaining - K) ways. Without a known amount of mines, every covered cell is
+ * taken to be a mine with the density p of the mines around the uncovered
+ * cells, so a combination with K mines is weighted by (p / (1 - p))^K and every
+ * cell off the frontier is a mine with p.
+ * 
+ * @author tthielen
+ */
+public class MineProbabilities {
+
+  private static final int MAX_OPEN_CONSTRAINTS = 16; // how many open constraints a state may have (4 bits each)
+  private static final int MAX_STATES = 100000; // how many states a step of the counting may have at most
+  private static final long MAX_WORK = 100000000; // how many additions the counting of a component may take at most
+  private static final int WORK_PER_CHECK = 65536; // how much work is done between two checks of the deadline
+  private static final double EPSILON = 1e-9; // probabilities closer than this are treated as equal
+
+  private FieldOfCells cells;
+  private HashMap<Integer, Double> probabilities = new HashMap<Integer, Double>(); // of the frontier (NaN = unrated)
+  private double offFrontierProbability = Double.NaN; // of every other covered cell (NaN if no cell is rated)
+
+  // the state of the counting of the current component
+  private int[] constraintCounts; // how many variables of every constraint are mines
+  private int[][] openConstraints; // the open constraints before variable v is assigned
+  private int[][] previousSlots; // the slot of every open constraint after v in the state before v (-1 = new)
+  private boolean[][] containsVariable; // whether every open constraint after v contains v
+  private int[][] unassignedAfter; // how many variables of every open constraint are after v
+  private int[][] closedConstraints; // the constraints whose last variable is v
+  private int[][] closedSlots; // the slot of every closed constraint in the state before v (-1 = new)
+  private double[] modelCounts; // how many models have k mines
+  private double[][] mineCounts; // in how many models with k mines variable v is a mine
+  private long work; // how many additions the counting has done
+  private Deadline deadline; // when the counting has to stop
+
+  /**
+   * Constructor for the calculation.
+   * 
+   * @param cells the inner representation of the field of cells
+   */
+  public MineProbabilities(FieldOfCells cells) {
+    this.cells = cells;
+  }
+
+  /**
+   * Calculates the probabilities of all covered cells which aren't marked as
+   * mines.
+   * 
+   * @param constraints the constraints of all clue cells (cells which have been
+   *                    marked as mines since they were generated are taken out)
+   * @param numOfMines  how many mines the field has in total (-1 if unknown)
+   * @param deadline    when the counting has to stop
+   * @return false, if the deadline has passed (or no cell could be rated)
+   */
+  public boolean calculate(ArrayList<CardinalityConstraint> constraints, long numOfMines, Deadline deadline) {
+    this.deadline = deadline;
+    probabilities.clear();
+    offFrontierProbability = Double.NaN;
+    CompactBoard board = cells.getBoard();
+    ArrayList<ArrayList<CardinalityConstraint>> components = FrontierComponents.split(withoutMines(constraints));
+    ArrayList<int[]> counted = new ArrayList<int[]>();
+    ArrayList<double[]> countedModels = new ArrayList<double[]>();
+    ArrayList<double[][]> countedMines = new ArrayList<double[][]>();
+    int frontierSize = 0;
+    int uncounted = 0; // the cells of the components which are too large to be counted
+    for (ArrayList<CardinalityConstraint> component : components) {
+      int[] componentVariables = order(component);
+      frontierSize += componentVariables.length;
+      if (!count(component, componentVariables)) {
+        if (deadline.isExceeded()) {
+          return false;
+        }
+        uncounted += componentVariables.length;
+        for (int v : componentVariables) {
+          probabilities.put(v, Double.NaN);
+        }
+        continue;
+      }
+      int maxMines = modelCounts.length - 1;
+      while (maxMines > 0 && modelCounts[maxMines] == 0) {
+        maxMines--;
+      }
+      counted.add(componentVariables);
+      countedModels.add(Arrays.copyOf(modelCounts, maxMines + 1));
+      countedMines.add(Arrays.copyOf(mineCounts, maxMines + 1));
+    }
+    int numOfComponents = counted.size();
+    int[][] variables = counted.toArray(new int[numOfComponents][]);
+    double[][] componentModels = countedModels.toArray(new double[numOfComponents][]);
+    double[][][] componentMines = countedMines.toArray(new double[numOfComponents][][]);
+
+    int offFrontier = board.getNumOfCoveredNotMines() - frontierSize;
+    int unconstrained = offFrontier + uncounted; // the cells whose mines are only bound by the amount of mines
+    long remaining = numOfMines;
+    for (int i = 0; i < board.size(); i++) {
+      if (board.isMine(i)) {
+        remaining--;
+      }
+    }
+
+    // the weight of a combination of models with K mines on the frontier
+    int maxFrontierMines = 0;
+    for (double[] models : componentModels) {
+      maxFrontierMines += models.length - 1;
+    }
+    double density = numOfMines < 0 ? estimateDensity(board) : Double.NaN;
+    double[] logWeights = new double[maxFrontierMines + 1];
+    double maxLogWeight = Double.NEGATIVE_INFINITY;
+    for (int k = 0; k <= maxFrontierMines; k++) {
+      if (numOfMines >= 0) {
+        logWeights[k] = logBinomial(unconstrained, remaining - k);
+      } else if (density > 0 && density < 1) {
+        logWeights[k] = k * Math.log(density / (1 - density));
+      } else {
+        // without any clue (or only zeros resp. only mines around the clues)
+        logWeights[k] = 0;
+      }
+      maxLogWeight = Math.max(maxLogWeight, logWeights[k]);
+    }
+    if (maxLogWeight == Double.NEGATIVE_INFINITY) {
+      // the remaining mines don't fit (the amount of mines is wrong)
+      return false;
+    }
+    double[] weights = new double[maxFrontierMines + 1];
+    for (int k = 0; k <= maxFrontierMines; k++) {
+      weights[k] = Math.exp(logWeights[k] - maxLogWeight);
+    }
+
+    /*
+     * suffixWeights[c][m] is the weight of all combinations of models of the
+     * components c and following, given m mines in the components before c. Every
+     * distribution is scaled to a maximum of 1 (which cancels out), so the counts
+     * of many components don't overflow.
+     */
+    double[][] suffixWeights = new double[numOfComponents + 1][];
+    suffixWeights[numOfComponents] = weights;
+    for (int c = numOfComponents - 1; c >= 0; c--) {
+      double[] next = suffixWeights[c + 1];
+      double[] current = new double[next.length - componentModels[c].length + 1];
+      for (int m = 0; m < current.length; m++) {
+        for (int k = 0; k < componentModels[c].length; k++) {
+          current[m] += componentModels[c][k] * next[m + k];
+        }
+      }
+      suffixWeights[c] = normalize(current);
+    }
+
+    // prefix is the distribution of the mines of all components before c
+    double[] prefix = { 1 };
+    for (int c = 0; c < numOfComponents; c++) {
+      double[] next = suffixWeights[c + 1];
+      double total = 0;
+      double[] cellWeights = new double[variables[c].length];
+      for (int k = 0; k < componentModels[c].length; k++) {
+        double weight = 0;
+        for (int i = 0; i < prefix.length; i++) {
+          weight += prefix[i] * next[i + k];
+        }
+        total += componentModels[c][k] * weight;
+        for (int v = 0; v < cellWeights.length; v++) {
+          cellWeights[v] += componentMines[c][k][v] * weight;
+        }
+      }
+      if (total == 0) {
+        // no model fits the remaining mines
+        return false;
+      }
+      for (int v = 0; v < cellWeights.length; v++) {
+        probabilities.put(variables[c][v], cellWeights[v] / total);
+      }
+      prefix = normalize(convolve(prefix, componentModels[c]));
+    }
+
+    if (numOfMines >= 0 && offFrontier > 0) {
+      // the expected share of the mines left for the cells off the frontier
+      double total = 0;
+      double expected = 0;
+      for (int k = 0; k < prefix.length; k++) {
+        total += prefix[k] * weights[k];
+        expected += prefix[k] * weights[k] * (remaining - k) / unconstrained;
+      }
+      offFrontierProbability = expected / total;
+    } else if (offFrontier > 0) {
+      offFrontierProbability = density;
+    }
+    return numOfComponents > 0 || !Double.isNaN(offFrontierProbability);
+  }
+
+  /**
+   * Takes the cells which are marked as mines out of the given constraints.
+   * 
+   * @param constraints the constraints of all clue cells
+   * @return the constraints of the cells which aren't marked
+   */
+  private ArrayList<CardinalityConstraint> withoutMines(ArrayList<CardinalityConstraint> constraints) {
+    CompactBoard board = cells.getBoard();
+    ArrayList<CardinalityConstraint> result = new ArrayList<CardinalityConstraint>(constraints.size());
+    for (CardinalityConstraint constraint : constraints) {
+      int[] variables = constraint.getVariables();
+      int[] notMines = new int[variables.length];
+      int n = 0;
+      for (int v : variables) {
+        if (!board.isMine(v)) {
+          notMines[n++] = v;
+        }
+      }
+      if (n == variables.length) {
+        result.add(constraint);
+      } else if (n > 0) {
+        result.add(new CardinalityConstraint(Arrays.copyOf(notMines, n), constraint.getCount() - (variables.length - n)));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Estimates the density of the mines by the clues of all uncovered cells,
+   * i.e. how many of their neighbours are mines.
+   * 
+   * @param board the board
+   * @return the density (NaN if no cell is uncovered)
+   */
+  private static double estimateDensity(CompactBoard board) {
+    NeighbourTable neighbourTable = board.getNeighbourTable();
+    long mines = 0;
+    long neighbours = 0;
+    for (int i = 0; i < board.size(); i++) {
+      if (board.isUncovered(i)) {
+        mines += board.getClue(i);
+        neighbours += neighbourTable.count(i);
+      }
+    }
+    return neighbours == 0 ? Double.NaN : (double) mines / neighbours;
+  }
+
+  /**
+   * Returns the covered cell (not marked as a mine) with the lowest probability
+   * to be a mine. Ties are broken at random.
+   * 
+   * @param random the random int generator
+   * @return the cell or null if no probability is known
+   */
+  public Cell getSafestCell(Random random) {
+    ArrayList<Integer> safest = new ArrayList<Integer>();
+    double lowest = Double.POSITIVE_INFINITY;
+    for (int index : sortedFrontier()) {
+      double probability = probabilities.get(index);
+      if (probability < lowest - EPSILON) {
+        lowest = probability;
+        safest.clear();
+      }
+      if (probability <= lowest + EPSILON) {
+        safest.add(index);
+      }
+    }
+    if (!Double.isNaN(offFrontierProbability) && offFrontierProbability <= lowest + EPSILON) {
+      if (offFrontierProbability < lowest - EPSILON) {
+        safest.clear();
+      }
+      CompactBoard board = cells.getBoard();
+      for (int i = board.nextCoveredNotMine(0); i >= 0; i = board.nextCoveredNotMine(i + 1)) {
+        if (!probabilities.containsKey(i)) {
+          safest.add(i);
+        }
+      }
+    }
+    if (safest.isEmpty()) {
+      return null;
+    }
+    return cells.getCell(safest.get(random.nextInt(safest.size())));
+  }
+
+  /**
+   * Returns the probability of the given cell to be a mine.
+   * 
+   * @param c the cell
+   * @return the probability (NaN if unknown)
+   */
+  public double getProbability(Cell c) {
+    Double probability = probabilities.get(c.getIndex());
+    return probability != null ? probability : offFrontierProbability;
+  }
+
+  /**
+   * Returns the frontier cells in order of their indices (so ties are broken
+   * reproducibly).
+   * 
+   * @return the indices of the frontier cells
+   */
+  private int[] sortedFrontier() {
+    int[] frontier = new int[probabilities.size()];
+    int i = 0;
+    for (int index : probabilities.keySet()) {
+      frontier[i++] = index;
+    }
+    Arrays.sort(frontier);
+    return frontier;
+  }
+
+  /**
+   * Orders the variables of a component so that few constraints are open at once
+   * (which keeps the states of the count small): the next variable is always one
+   * of an open constraint, which closes as many and opens as few constraints as
+   * possible.
+   * 
+   * @param component the constraints of the component
+   * @return the variables (cell indices) in the order of the count
+   */
+  private int[] order(ArrayList<CardinalityConstraint> component) {
+    HashMap<Integer, ArrayList<Integer>> constraintsOf = new HashMap<Integer, ArrayList<Integer>>();
+    int[] unassignedVariables = new int[component.size()];
+    for (int i = 0; i < component.size(); i++) {
+      for (int v : component.get(i).getVariables()) {
+        constraintsOf.computeIfAbsent(v, k -> new ArrayList<Integer>()).add(i);
+      }
+      unassignedVariables[i] = component.get(i).getVariables().length;
+    }
+    int[] order = new int[constraintsOf.size()];
+    HashSet<Integer> ordered = new HashSet<Integer>();
+    LinkedHashSet<Integer> open = new LinkedHashSet<Integer>();
+    int next = component.get(0).getVariables()[0];
+    for (int n = 0; n < order.length; n++) {
+      order[n] = next;
+      ordered.add(next);
+      for (int i : constraintsOf.get(next)) {
+        if (--unassignedVariables[i] == 0) {
+          open.remove(i);
+        } else {
+          open.add(i);
+        }
+      }
+      int bestScore = Integer.MAX_VALUE;
+      for (int i : open) {
+        for (int v : component.get(i).getVariables()) {
+          if (ordered.contains(v)) {
+            continue;
+          }
+          int score = 0; // opened minus closed constraints
+          for (int j : constraintsOf.get(v)) {
+            if (unassignedVariables[j] == 1) {
+              score--;
+            } else if (!open.contains(j)) {
+              score++;
+            }
+          }
+          if (score < bestScore || (score == bestScore && v < next)) {
+            bestScore = score;
+            next = v;
+          }
+        }
+      }
+    }
+    return order;
+  }
+
+  /**
+   * Counts the models of a component, grouped by their amount of mines (see
+   * modelCounts and mineCounts). A state of the count before variable v is the
+   * amount of mines of every constraint which is open at that point, packed into
+   * a long (4 bits per constraint), and is mapped to the amount of ways to reach
+   * it by the amount of mines. The forward pass counts the partial models up to
+   * every variable, the backward pass the ways to complete them, so every
+   * variable is rated by combining both.
+   * 
+   * @param component the constraints of the component
+   * @param variables the variables of the component in the order of the count
+   * @return false, if the component is too large to be counted (or the deadline
+   *         has passed)
+   */
+  private boolean count(ArrayList<CardinalityConstraint> component, int[] variables) {
+    if (!prepare(component, variables)) {
+      return false;
+    }
+    int n = variables.length;
+    work = 0;
+
+    // forward[v] maps every state before variable v to the ways to reach it
+    ArrayList<HashMap<Long, double[]>> forward = new ArrayList<HashMap<Long, double[]>>(n + 1);
+    HashMap<Long, double[]> first = new HashMap<Long, double[]>();
+    first.put(0L, new double[] { 1 });
+    forward.add(first);
+    for (int v = 0; v < n; v++) {
+      HashMap<Long, double[]> next = new HashMap<Long, double[]>();
+      for (Map.Entry<Long, double[]> entry : forward.get(v).entrySet()) {
+        double[] ways = entry.getValue();
+        for (int mine = 0; mine < 2; mine++) {
+          long state = transition(v, entry.getKey(), mine);
+          if (state != -1) {
+            double[] target = next.computeIfAbsent(state, k -> new double[ways.length + 1]);
+            for (int k = 0; k < ways.length; k++) {
+              target[k + mine] += ways[k];
+            }
+          }
+        }
+        if (!spend(ways.length)) {
+          return false;
+        }
+      }
+      if (next.size() > MAX_STATES) {
+        return false;
+      }
+      forward.add(next);
+    }
+
+    // backward maps every state before variable v to the ways to complete it
+    modelCounts = new double[n + 1];
+    mineCounts = new double[n + 1][n];
+    HashMap<Long, double[]> backward = new HashMap<Long, double[]>();
+    backward.put(0L, new double[] { 1 });
+    for (int v = n - 1; v >= 0; v--) {
+      HashMap<Long, double[]> previous = new HashMap<Long, double[]>();
+      for (Map.Entry<Long, double[]> entry : forward.get(v).entrySet()) {
+        double[] ways = entry.getValue();
+        for (int mine = 0; mine < 2; mine++) {
+          double[] completions = backward.get(transition(v, entry.getKey(), mine));
+          if (completions == null) {
+            continue;
+          }
+          double[] target = previous.computeIfAbsent(entry.getKey(), k -> new double[completions.length + 1]);
+          for (int k = 0; k < completions.length; k++) {
+            target[k + mine] += completions[k];
+          }
+          if (mine == 1) {
+            // the models in which v is a mine, by their amount of mines
+            for (int i = 0; i < ways.length; i++) {
+              if (ways[i] != 0) {
+                for (int j = 0; j < completions.length; j++) {
+                  mineCounts[i + 1 + j][v] += ways[i] * completions[j];
+                }
+              }
+            }
+            if (!spend((long) ways.length * completions.length)) {
+              return false;
+            }
+          }
+        }
+      }
+      backward = previous;
+      forward.set(v + 1, null);
+    }
+    double[] models = backward.get(0L);
+    if (models != null) {
+      System.arraycopy(models, 0, modelCounts, 0, models.length);
+    }
+    return true;
+  }
+
+  /**
+   * Prepares the transitions of the count of a component: which constraints are
+   * open before every variable and where their amounts of mines are packed.
+   * 
+   * @param component the constraints of the component
+   * @param variables the variables of the component in the order of the count
+   * @return false, if too many constraints would be open at once
+   */
+  private boolean prepare(ArrayList<CardinalityConstraint> component, int[] variables) {
+    int n = variables.length;
+    HashMap<Integer, Integer> position = new HashMap<Integer, Integer>();
+    for (int v = 0; v < n; v++) {
+      position.put(variables[v], v);
+    }
+    int numOfConstraints = component.size();
+    constraintCounts = new int[numOfConstraints];
+    int[] firstVariable = new int[numOfConstraints];
+    int[] lastVariable = new int[numOfConstraints];
+    int[] variablesAfter = new int[numOfConstraints]; // how many variables of every constraint are after v
+    boolean[][] contains = new boolean[numOfConstraints][];
+    for (int i = 0; i < numOfConstraints; i++) {
+      constraintCounts[i] = component.get(i).getCount();
+      firstVariable[i] = n;
+      lastVariable[i] = -1;
+      for (int cellIndex : component.get(i).getVariables()) {
+        int v = position.get(cellIndex);
+        firstVariable[i] = Math.min(firstVariable[i], v);
+        lastVariable[i] = Math.max(lastVariable[i], v);
+      }
+      variablesAfter[i] = component.get(i).getVariables().length;
+    }
+    int[][] constraintsOf = new int[n][];
+    int[] numOfConstraintsOf = new int[n];
+    for (CardinalityConstraint constraint : component) {
+      for (int cellIndex : constraint.getVariables()) {
+        numOfConstraintsOf[position.get(cellIndex)]++;
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      constraintsOf[v] = new int[numOfConstraintsOf[v]];
+      numOfConstraintsOf[v] = 0;
+    }
+    for (int i = 0; i < numOfConstraints; i++) {
+      for (int cellIndex : component.get(i).getVariables()) {
+        int v = position.get(cellIndex);
+        constraintsOf[v][numOfConstraintsOf[v]++] = i;
+      }
+    }
+
+    openConstraints = new int[n + 1][];
+    previousSlots = new int[n][];
+    containsVariable = new boolean[n][];
+    unassignedAfter = new int[n][];
+    closedConstraints = new int[n][];
+    closedSlots = new int[n][];
+    openConstraints[0] = new int[0];
+    int[] slot = new int[numOfConstraints]; // the slot of every open constraint (-1 = not open)
+    Arrays.fill(slot, -1);
+    for (int v = 0; v < n; v++) {
+      boolean[] touched = new boolean[numOfConstraints];
+      for (int i : constraintsOf[v]) {
+        touched[i] = true;
+        variablesAfter[i]--;
+      }
+      ArrayList<Integer> open = new ArrayList<Integer>();
+      ArrayList<Integer> closed = new ArrayList<Integer>();
+      for (int i : openConstraints[v]) {
+        (lastVariable[i] == v ? closed : open).add(i);
+      }
+      for (int i : constraintsOf[v]) {
+        if (firstVariable[i] == v) {
+          (lastVariable[i] == v ? closed : open).add(i);
+        }
+      }
+      if (open.size() > MAX_OPEN_CONSTRAINTS) {
+        return false;
+      }
+      openConstraints[v + 1] = new int[open.size()];
+      previousSlots[v] = new int[open.size()];
+      containsVariable[v] = new boolean[open.size()];
+      unassignedAfter[v] = new int[open.size()];
+      for (int j = 0; j < open.size(); j++) {
+        int i = open.get(j);
+        openConstraints[v + 1][j] = i;
+        previousSlots[v][j] = slot[i];
+        containsVariable[v][j] = touched[i];
+        unassignedAfter[v][j] = variablesAfter[i];
+      }
+      closedConstraints[v] = new int[closed.size()];
+      closedSlots[v] = new int[closed.size()];
+      for (int j = 0; j < closed.size(); j++) {
+        closedConstraints[v][j] = closed.get(j);
+        closedSlots[v][j] = slot[closed.get(j)];
+      }
+      Arrays.fill(slot, -1);
+      for (int j = 0; j < open.size(); j++) {
+        slot[open.get(j)] = j;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Assigns variable v in the given state.
+   * 
+   * @param v     the variable
+   * @param state the amounts of mines of the open constraints before v
+   * @param mine  1, if v is a mine (0 otherwise)
+   * @return the state after v (-1 if a constraint can't be fulfilled anymore)
+   */
+  private long transition(int v, long state, int mine) {
+    for (int j = 0; j < closedConstraints[v].length; j++) {
+      int slot = closedSlots[v][j];
+      int mines = slot >= 0 ? (int) (state >>> (4 * slot)) & 15 : 0;
+      if (mines + mine != constraintCounts[closedConstraints[v][j]]) {
+        return -1;
+      }
+    }
+    long next = 0;
+    int[] open = openConstraints[v + 1];
+    for (int j = 0; j < open.length; j++) {
+      int previous = previousSlots[v][j];
+      int mines = previous >= 0 ? (int) (state >>> (4 * previous)) & 15 : 0;
+      if (containsVariable[v][j]) {
+        mines += mine;
+      }
+      int count = constraintCounts[open[j]];
+      if (mines > count || mines + unassignedAfter[v][j] < count) {
+        return -1;
+      }
+      next |= (long) mines << (4 * j);
+    }
+    return next;
+  }
+
+  /**
+   * Accounts for the work of the count.
+   * 
+   * @param additions how many additions have been done
+   * @return false, if the count got too large (or the deadline has passed)
+   */
+  private boolean spend(long additions) {
+    long before = work;
+    work += additions;
+    if (work > MAX_WORK) {
+      return false;
+    }
+    return before / WORK_PER_CHECK == work / WORK_PER_CHECK || !deadline.isExceeded();
+  }
+
+  /**
+   * Combines two distributions of mines (the amount of ways for every amount).
+   * 
+   * @param a the first distribution
+   * @param b the second distribution
+   * @return the combined distribution
+   */
+  private static double[] convolve(double[] a, double[] b) {
+    double[] result = new double[a.length + b.length - 1];
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] != 0) {
+        for (int j = 0; j < b.length; j++) {
+          result[i + j] += a[i] * b[j];
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Scales a distribution of mines to a maximum of 1.
+   * 
+   * @param distribution the distribution
+   * @return the scaled distribution
+   */
+  private static double[] normalize(double[] distribution) {
+    double max = 0;
+    for (double d : distribution) {
+      max = Math.max(max, d);
+    }
+    if (max > 0) {
+      for (int i = 0; i < distribution.length; i++) {
+        distribution[i] /= max;
+      }
+    }
+    return distribution;
+  }
+
+  /**
+   * Returns the natural logarithm of binomial(n, k).
+   * 
+   * @param n the amount of cells
+   * @param k the amount of mines among them
+   * @return the logarithm (negative infinity if it's impossible)
+   */
+  private static double logBinomial(long n, long k) {
+    if (k < 0 || k > n) {
+      return Double.NEGATIVE_INFINITY;
+    }
+    k = Math.min(k, n - k);
+    double result = 0;
+    for (long i = 1; i <= k; i++) {
+      result += Math.log((double) (n - k + i) / i);
+    }
+    return result;
+  }
+}
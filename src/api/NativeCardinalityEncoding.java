@@ -0,0 +1,24 @@
+package api;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+
+/**
+ * Hands a cardinality constraint directly to the native cardinality constraints
+ * of sat4j, so no clauses or auxiliary variables are generated at all.
+ * 
+ * @author tthielen
+ */
+public class NativeCardinalityEncoding implements CardinalityEncoding {
+
+  @Override
+  public void addExactly(ISolver solver, int[] variables, int k) throws ContradictionException {
+    solver.addExactly(new VecInt(variables), k);
+  }
+
+  @Override
+  public String getName() {
+    return "native";
+  }
+}
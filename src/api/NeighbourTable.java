@@ -0,0 +1,173 @@
+package api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A precomputed table of the neighbours of every cell of a board with the given
+ * dimensions, stored compressed: the neighbours of cell i are
+ * getNeighbour(start(i)) ... getNeighbour(end(i) - 1), in the same order as
+ * FieldOfCells.getNeighbourCells.
+ * 
+ * The tables are immutable and shared by all boards of the same dimensions, so
+ * they are only computed once for all games on the same field:
+ * 
+ * for (int k = table.start(i); k < table.end(i); k++) {
+ *   int neighbour = table.getNeighbour(k);
+ * }
+ * 
+ * Only the tables of the MAX_TABLES most recently used dimensions are kept, so
+ * boards of many different sizes (e.g. of the scaling benchmark) don't pile up.
+ * 
+ * @author tthielen
+ */
+public class NeighbourTable {
+
+  private static final int MAX_TABLES = 16; // how many tables are kept at most (more than the fields have sizes)
+
+  // the shared tables by their dimensions, the least recently used one is dropped first
+  private static final LinkedHashMap<Long, NeighbourTable> tables = new LinkedHashMap<Long, NeighbourTable>(16, 0.75f,
+      true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, NeighbourTable> eldest) {
+      return size() > MAX_TABLES;
+    }
+  };
+
+  private int numOfCols;
+  private int numOfRows;
+  private int[] offsets; // the neighbours of cell i start at offsets[i] and end before offsets[i + 1]
+  private int[] neighbours; // the indices of the neighbours of all cells
+
+  /**
+   * Returns the (shared) table for boards of the given dimensions.
+   * 
+   * @param numOfCols the amount of columns
+   * @param numOfRows the amount of rows
+   * @return the neighbour table
+   */
+  public static NeighbourTable forSize(int numOfCols, int numOfRows) {
+    long key = ((long) numOfCols << 32) | numOfRows;
+    synchronized (tables) {
+      NeighbourTable table = tables.get(key);
+      if (table != null) {
+        return table;
+      }
+    }
+    // computed outside of the lock, so other sizes aren't blocked meanwhile
+    NeighbourTable table = new NeighbourTable(numOfCols, numOfRows);
+    synchronized (tables) {
+      NeighbourTable existing = tables.putIfAbsent(key, table);
+      return existing != null ? existing : table;
+    }
+  }
+
+  /**
+   * Constructor which computes the table.
+   * 
+   * @param numOfCols the amount of columns
+   * @param numOfRows the amount of rows
+   */
+  private NeighbourTable(int numOfCols, int numOfRows) {
+    this.numOfCols = numOfCols;
+    this.numOfRows = numOfRows;
+    int size = numOfCols * numOfRows;
+    this.offsets = new int[size + 1];
+    int[] buffer = new int[8 * size];
+    int k = 0;
+    for (int index = 0; index < size; index++) {
+      offsets[index] = k;
+      int x = index % numOfCols;
+      int y = index / numOfCols;
+      boolean up = y > 0;
+      boolean down = y < numOfRows - 1;
+      boolean left = x > 0;
+      boolean right = x < numOfCols - 1;
+      // Upper Neighbour
+      if (up) {
+        buffer[k++] = index - numOfCols;
+      }
+      // Upper Right Neighbour
+      if (up && right) {
+        buffer[k++] = index - numOfCols + 1;
+      }
+      // Right Neighbour
+      if (right) {
+        buffer[k++] = index + 1;
+      }
+      // Lower Right Neighbour
+      if (down && right) {
+        buffer[k++] = index + numOfCols + 1;
+      }
+      // Lower Neighbour
+      if (down) {
+        buffer[k++] = index + numOfCols;
+      }
+      // Lower Left Neighbour
+      if (down && left) {
+        buffer[k++] = index + numOfCols - 1;
+      }
+      // Left Neighbour
+      if (left) {
+        buffer[k++] = index - 1;
+      }
+      // Upper Left Neighbour
+      if (up && left) {
+        buffer[k++] = index - numOfCols - 1;
+      }
+    }
+    offsets[size] = k;
+    this.neighbours = new int[k];
+    System.arraycopy(buffer, 0, neighbours, 0, k);
+  }
+
+  /**
+   * Returns the position of the first neighbour of the given cell.
+   * 
+   * @param index the index of the cell
+   * @return the position of the first neighbour
+   */
+  public int start(int index) {
+    return offsets[index];
+  }
+
+  /**
+   * Returns the position after the last neighbour of the given cell.
+   * 
+   * @param index the index of the cell
+   * @return the position after the last neighbour
+   */
+  public int end(int index) {
+    return offsets[index + 1];
+  }
+
+  /**
+   * Returns the amount of neighbours of the given cell.
+   * 
+   * @param index the index of the cell
+   * @return the amount of neighbours
+   */
+  public int count(int index) {
+    return offsets[index + 1] - offsets[index];
+  }
+
+  /**
+   * Returns the neighbour at the given position.
+   * 
+   * @param k a position between start(i) and end(i) of a cell i
+   * @return the index of the neighbour
+   */
+  public int getNeighbour(int k) {
+    return neighbours[k];
+  }
+
+  public int getNumOfCols() {
+    return this.numOfCols;
+  }
+
+  public int getNumOfRows() {
+    return this.numOfRows;
+  }
+}
@@ -0,0 +1,20 @@
+package api;
+
+/**
+ * Proves the cells with the PropagationSolver, which handles the clue
+ * constraints natively instead of translating them for a SAT solver.
+ * 
+ * @author tthielen
+ */
+public class PropagationBackend implements SolverBackend {
+
+  @Override
+  public ConstraintSolver newSolver(int numOfVariables) {
+    return new PropagationSolver(numOfVariables);
+  }
+
+  @Override
+  public String getName() {
+    return "propagation";
+  }
+}
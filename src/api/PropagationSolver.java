@@ -0,0 +1,442 @@
+package api;
+
+import java.util.Arrays;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * A solver tailored to the constraints of Minesweeper: every constraint is kept
+ * as it is ("exactly k of these variables are true") together with how many of
+ * its variables are currently true and unassigned, so assigning a variable only
+ * updates the counters of its (at most eight) constraints. A constraint whose
+ * remaining variables must all be true (resp. false) assigns them right away.
+ * 
+ * Queries are answered by a backtracking search which always branches on a
+ * variable of the constraint with the fewest unassigned variables, and only
+ * searches the component (of variables connected via constraints) of the
+ * assumption. The other components are taken from the last model, which stays
+ * valid as long as the constraints and facts added since then agree with it
+ * (proven facts always do).
+ * 
+ * Facts and the assignments they imply are kept for good, everything assigned
+ * by a query is undone before it returns (even if it times out).
+ * 
+ * @author tthielen
+ */
+public class PropagationSolver implements ConstraintSolver {
+
+  private static final byte MINE = 1; // the value of a true variable
+  private static final byte SAFE = -1; // the value of a false variable
+  private static final int DECISIONS_PER_CHECK = 256; // how many decisions are made between two checks of the deadline
+
+  private int numOfVariables;
+  private byte[] values; // the value of every variable (0 = unassigned)
+  private int[] trail; // the assigned variables in the order of their assignment
+  private int trailSize = 0;
+  private int propagated = 0; // how many variables of the trail have been propagated
+  private boolean searching = false; // whether the assignments are only temporary (undone after the query)
+  private boolean contradictory = false; // whether the facts and constraints contradict each other
+  private Deadline deadline = Deadline.NONE;
+  private int decisions = 0; // how many decisions have been made (by all queries)
+  private long conflicts = 0; // how many times a constraint was violated
+  private long propagations = 0; // how many variables have been assigned because they were forced
+
+  private int[][] occurrences; // the constraints of every variable
+  private int[] numOfOccurrences;
+  private IndexSet freeVariables; // the variables which occur in a constraint and aren't assigned by facts
+
+  private int numOfConstraints = 0;
+  private int[][] constraintVariables = new int[16][];
+  private int[] constraintCounts = new int[16]; // how many variables of every constraint are true
+  private int[] constraintTrue = new int[16]; // how many variables of every constraint are assigned to be true
+  private int[] constraintFree = new int[16]; // how many variables of every constraint are unassigned
+
+  private byte[] modelValues; // the last model (0 = variable occurs in no constraint)
+  private boolean modelValid = false; // whether the last model still satisfies all constraints and facts
+
+  // the component which is searched by the current query
+  private int[] componentVariables;
+  private int numOfComponentVariables;
+  private int[] componentConstraints = new int[16];
+  private int numOfComponentConstraints;
+  private int[] variableStamps; // the stamp of the component every variable was last collected for
+  private int[] constraintStamps = new int[16]; // the stamp of the component every constraint was last collected for
+  private int stamp = 0;
+
+  // the decisions of the current search
+  private int[] decisionVariables;
+  private int[] decisionTrail; // the size of the trail before every decision
+  private boolean[] flipped; // whether a decision already got its second value
+
+  /**
+   * Constructor for the (empty) solver.
+   * 
+   * @param numOfVariables the amount of variables (1 to numOfVariables)
+   */
+  public PropagationSolver(int numOfVariables) {
+    this.numOfVariables = numOfVariables;
+    this.values = new byte[numOfVariables + 1];
+    this.trail = new int[numOfVariables];
+    this.occurrences = new int[numOfVariables + 1][];
+    this.numOfOccurrences = new int[numOfVariables + 1];
+    this.freeVariables = new IndexSet(numOfVariables + 1);
+    this.modelValues = new byte[numOfVariables + 1];
+    this.componentVariables = new int[numOfVariables];
+    this.variableStamps = new int[numOfVariables + 1];
+    this.decisionVariables = new int[numOfVariables];
+    this.decisionTrail = new int[numOfVariables];
+    this.flipped = new boolean[numOfVariables];
+  }
+
+  @Override
+  public void addExactly(int[] variables, int k) throws ContradictionException {
+    if (numOfConstraints == constraintCounts.length) {
+      int capacity = 2 * numOfConstraints;
+      constraintVariables = Arrays.copyOf(constraintVariables, capacity);
+      constraintCounts = Arrays.copyOf(constraintCounts, capacity);
+      constraintTrue = Arrays.copyOf(constraintTrue, capacity);
+      constraintFree = Arrays.copyOf(constraintFree, capacity);
+      constraintStamps = Arrays.copyOf(constraintStamps, capacity);
+      componentConstraints = Arrays.copyOf(componentConstraints, capacity);
+    }
+    int c = numOfConstraints++;
+    constraintVariables[c] = variables.clone();
+    constraintCounts[c] = k;
+    int modelTrue = 0;
+    for (int v : variables) {
+      if (numOfOccurrences[v] == 0) {
+        occurrences[v] = new int[8];
+      } else if (numOfOccurrences[v] == occurrences[v].length) {
+        occurrences[v] = Arrays.copyOf(occurrences[v], 2 * numOfOccurrences[v]);
+      }
+      occurrences[v][numOfOccurrences[v]++] = c;
+      if (values[v] == MINE) {
+        constraintTrue[c]++;
+      } else if (values[v] == 0) {
+        constraintFree[c]++;
+        freeVariables.add(v);
+      }
+      if (modelValues[v] == MINE) {
+        modelTrue++;
+      }
+    }
+    if (modelTrue != k) {
+      modelValid = false;
+    }
+    if (!check(c) || !propagate()) {
+      contradictory = true;
+      throw new ContradictionException("The constraint contradicts the solver");
+    }
+  }
+
+  @Override
+  public void addFact(int literal) throws ContradictionException {
+    int v = Math.abs(literal);
+    byte value = literal > 0 ? MINE : SAFE;
+    if (values[v] == value) {
+      return;
+    }
+    if (modelValues[v] != value) {
+      modelValid = false;
+    }
+    if (values[v] != 0) {
+      contradictory = true;
+      throw new ContradictionException("The fact contradicts the solver");
+    }
+    assign(v, value);
+    if (!propagate()) {
+      contradictory = true;
+      throw new ContradictionException("The fact contradicts the solver");
+    }
+  }
+
+  @Override
+  public void setDeadline(Deadline deadline) {
+    this.deadline = deadline;
+  }
+
+  @Override
+  public boolean isSatisfiable() throws TimeoutException {
+    if (contradictory) {
+      return false;
+    }
+    searching = true;
+    int base = trailSize;
+    try {
+      boolean satisfiable = true;
+      for (int k = 0; k < freeVariables.size() && satisfiable; k++) {
+        int v = freeVariables.get(k);
+        if (values[v] == 0) {
+          // the components of the variables are independent, so each is searched on its own
+          collectComponent(v);
+          satisfiable = search();
+        }
+      }
+      if (satisfiable) {
+        for (int v = 1; v <= numOfVariables; v++) {
+          modelValues[v] = values[v];
+        }
+        modelValid = true;
+      }
+      return satisfiable;
+    } finally {
+      undo(base);
+      searching = false;
+    }
+  }
+
+  @Override
+  public boolean isSatisfiable(int assumption) throws TimeoutException {
+    int v = Math.abs(assumption);
+    byte value = assumption > 0 ? MINE : SAFE;
+    if (contradictory || values[v] == -value) {
+      return false;
+    }
+    if (!modelValid && !isSatisfiable()) {
+      return false;
+    }
+    if (values[v] == value || numOfOccurrences[v] == 0 || modelValues[v] == value) {
+      // the last model already satisfies the assumption (or the variable is
+      // unconstrained)
+      modelValues[v] = value;
+      return true;
+    }
+    searching = true;
+    int base = trailSize;
+    try {
+      collectComponent(v);
+      assign(v, value);
+      boolean satisfiable = propagate() && search();
+      if (satisfiable) {
+        // only the component changed, the rest of the last model still holds
+        for (int k = 0; k < numOfComponentVariables; k++) {
+          int u = componentVariables[k];
+          modelValues[u] = values[u];
+        }
+      }
+      return satisfiable;
+    } finally {
+      undo(base);
+      searching = false;
+    }
+  }
+
+  @Override
+  public int[] model() {
+    int[] model = new int[numOfVariables];
+    for (int v = 1; v <= numOfVariables; v++) {
+      model[v - 1] = modelValues[v] == MINE ? v : -v;
+    }
+    return model;
+  }
+
+  @Override
+  public int getNumOfVariables() {
+    return numOfVariables;
+  }
+
+  @Override
+  public int getNumOfConstraints() {
+    return numOfConstraints;
+  }
+
+  @Override
+  public long getNumOfConflicts() {
+    return conflicts;
+  }
+
+  @Override
+  public long getNumOfPropagations() {
+    return propagations;
+  }
+
+  /**
+   * Collects the unassigned variables which are connected to the given one via
+   * constraints (with unassigned variables), and those constraints.
+   * 
+   * @param start the unassigned variable
+   */
+  private void collectComponent(int start) {
+    stamp++;
+    numOfComponentVariables = 0;
+    numOfComponentConstraints = 0;
+    variableStamps[start] = stamp;
+    componentVariables[numOfComponentVariables++] = start;
+    for (int k = 0; k < numOfComponentVariables; k++) {
+      int v = componentVariables[k];
+      for (int i = 0; i < numOfOccurrences[v]; i++) {
+        int c = occurrences[v][i];
+        if (constraintStamps[c] == stamp || constraintFree[c] == 0) {
+          continue;
+        }
+        constraintStamps[c] = stamp;
+        componentConstraints[numOfComponentConstraints++] = c;
+        for (int u : constraintVariables[c]) {
+          if (values[u] == 0 && variableStamps[u] != stamp) {
+            variableStamps[u] = stamp;
+            componentVariables[numOfComponentVariables++] = u;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Searches an assignment of the collected component which satisfies its
+   * constraints (starting from the current, propagated assignment). The
+   * assignment found is kept, a failed search leaves the variables assigned
+   * before it as they were.
+   * 
+   * @return true, if the component is satisfiable
+   * @throws TimeoutException if the deadline has passed
+   */
+  private boolean search() throws TimeoutException {
+    int depth = 0;
+    while (true) {
+      int v = selectVariable();
+      if (v == 0) {
+        return true;
+      }
+      if (++decisions % DECISIONS_PER_CHECK == 0 && deadline.isExceeded()) {
+        throw new TimeoutException("The deadline has passed");
+      }
+      decisionVariables[depth] = v;
+      decisionTrail[depth] = trailSize;
+      flipped[depth] = false;
+      depth++;
+      // most cells are safe, so that's tried first
+      assign(v, SAFE);
+      while (!propagate()) {
+        // backtrack to the last decision which hasn't got its second value yet
+        do {
+          if (depth == 0) {
+            return false;
+          }
+          undo(decisionTrail[depth - 1]);
+        } while (flipped[--depth]);
+        flipped[depth] = true;
+        assign(decisionVariables[depth], MINE);
+        depth++;
+      }
+    }
+  }
+
+  /**
+   * Selects the next variable to branch on: an unassigned variable of the
+   * constraint of the component with the fewest unassigned variables.
+   * 
+   * @return the variable or 0 if all constraints are satisfied
+   */
+  private int selectVariable() {
+    int best = -1;
+    int fewest = Integer.MAX_VALUE;
+    for (int k = 0; k < numOfComponentConstraints; k++) {
+      int c = componentConstraints[k];
+      if (constraintFree[c] > 0 && constraintFree[c] < fewest) {
+        best = c;
+        fewest = constraintFree[c];
+        if (fewest == 2) {
+          // after the propagation, no constraint has a single unassigned variable
+          break;
+        }
+      }
+    }
+    if (best < 0) {
+      return 0;
+    }
+    for (int v : constraintVariables[best]) {
+      if (values[v] == 0) {
+        return v;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Assigns a value to the variable and updates the counters of its constraints.
+   * 
+   * @param v     the unassigned variable
+   * @param value MINE or SAFE
+   */
+  private void assign(int v, byte value) {
+    values[v] = value;
+    trail[trailSize++] = v;
+    for (int i = 0; i < numOfOccurrences[v]; i++) {
+      int c = occurrences[v][i];
+      constraintFree[c]--;
+      if (value == MINE) {
+        constraintTrue[c]++;
+      }
+    }
+    if (!searching) {
+      freeVariables.remove(v);
+    }
+  }
+
+  /**
+   * Propagates all assignments which haven't been propagated yet: every
+   * constraint of an assigned variable is checked and its remaining variables are
+   * assigned if they are forced.
+   * 
+   * @return false, if a constraint is violated
+   */
+  private boolean propagate() {
+    while (propagated < trailSize) {
+      int v = trail[propagated++];
+      for (int i = 0; i < numOfOccurrences[v]; i++) {
+        if (!check(occurrences[v][i])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether the constraint can still be satisfied and assigns its
+   * remaining variables if they are forced.
+   * 
+   * @param c the constraint
+   * @return false, if the constraint is violated
+   */
+  private boolean check(int c) {
+    int k = constraintCounts[c];
+    int free = constraintFree[c];
+    int mines = constraintTrue[c];
+    if (mines > k || mines + free < k) {
+      conflicts++;
+      return false;
+    }
+    if (free > 0 && (mines == k || mines + free == k)) {
+      byte value = mines == k ? SAFE : MINE;
+      for (int u : constraintVariables[c]) {
+        if (values[u] == 0) {
+          assign(u, value);
+        }
+      }
+      propagations += free;
+    }
+    return true;
+  }
+
+  /**
+   * Undoes all assignments after the given position of the trail.
+   * 
+   * @param position the size of the trail to return to
+   */
+  private void undo(int position) {
+    while (trailSize > position) {
+      int v = trail[--trailSize];
+      for (int i = 0; i < numOfOccurrences[v]; i++) {
+        int c = occurrences[v][i];
+        constraintFree[c]++;
+        if (values[v] == MINE) {
+          constraintTrue[c]--;
+        }
+      }
+      values[v] = 0;
+    }
+    propagated = Math.min(propagated, position);
+  }
+}
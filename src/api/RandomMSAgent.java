@@ -9,25 +9,31 @@ import java.util.Random;
  */
 public class RandomMSAgent extends MSAgent {
 
+	private MSGame game;
 	private Random rand;
 	private boolean displayActivated = false;
 	private boolean firstDecision = true;
 
 	public RandomMSAgent(MSField field) {
-		super(field);
+		this(new MSFieldGame(field));
+	}
+
+	public RandomMSAgent(MSGame game) {
+		super(game instanceof MSFieldGame ? ((MSFieldGame) game).getField() : null);
+		this.game = game;
 		this.rand = new Random();
 	}
 
 	@Override
 	public boolean solve() {
 
-		int numOfRows = this.field.getNumOfRows();
-		int numOfCols = this.field.getNumOfCols();
+		int numOfRows = game.getNumOfRows();
+		int numOfCols = game.getNumOfCols();
 		int x, y, feedback;
 
 		do {
 			if (displayActivated) {
-				System.out.println(field);
+				System.out.println(game);
 			}
 			if (firstDecision) {
 				x = 0;
@@ -40,11 +46,11 @@ public class RandomMSAgent extends MSAgent {
 
 			if (displayActivated)
 				System.out.println("Uncovering (" + x + "," + y + ")");
-			feedback = field.uncover(x, y);
+			feedback = game.uncover(x, y);
 
-		} while (feedback >= 0 && !field.solved());
+		} while (feedback >= 0 && !game.solved());
 
-		if (field.solved()) {
+		if (game.solved()) {
 			if (displayActivated) {
 				System.out.println("Solved the field");
 			}
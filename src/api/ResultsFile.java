@@ -0,0 +1,66 @@
+package api;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the statistics of several fields as comma separated values
+ * (one row per field, see FieldStatistics), which are used as the baselines
+ * the results of later runs are compared to.
+ * 
+ * @author tthielen
+ */
+public class ResultsFile {
+
+  /**
+   * Reads the statistics of all fields of a results file.
+   * 
+   * @param path the path of the results file
+   * @return the statistics by the names of their fields (empty if the file
+   *         doesn't exist yet)
+   * @throws IOException              if the file can't be read
+   * @throws IllegalArgumentException if a row is malformed
+   */
+  public static LinkedHashMap<String, FieldStatistics> read(String path) throws IOException {
+    LinkedHashMap<String, FieldStatistics> results = new LinkedHashMap<String, FieldStatistics>();
+    Path file = Paths.get(path);
+    if (!Files.exists(file)) {
+      return results;
+    }
+    List<String> rows = Files.readAllLines(file);
+    for (int i = 0; i < rows.size(); i++) {
+      String row = rows.get(i).trim();
+      // skip the header and empty rows
+      if (row.isEmpty() || row.equals(FieldStatistics.HEADER)) {
+        continue;
+      }
+      FieldStatistics statistics = FieldStatistics.parse(row);
+      results.put(statistics.getField(), statistics);
+    }
+    return results;
+  }
+
+  /**
+   * Writes the statistics of the given fields, replacing the file.
+   * 
+   * @param path    the path of the results file
+   * @param results the statistics by the names of their fields
+   * @throws IOException if the file can't be written
+   */
+  public static void write(String path, Map<String, FieldStatistics> results) throws IOException {
+    try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(path))) {
+      bw.write(FieldStatistics.HEADER);
+      bw.write("\r\n");
+      for (FieldStatistics statistics : results.values()) {
+        bw.write(statistics.toCsv());
+        bw.write("\r\n");
+      }
+    }
+  }
+}
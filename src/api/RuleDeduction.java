@@ -0,0 +1,247 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Deduces safe cells and mines via simple local rules, which decide most steps
+ * without the need of a SAT solver:
+ * 
+ * - If the clue of a cell equals its marked neighbour mines, all other covered
+ * neighbours are safe. If it equals its covered neighbours, all of them are
+ * mines.
+ * 
+ * - If the unknown neighbours of a clue cell A are a subset of the unknown
+ * neighbours of a clue cell B, the remaining neighbours of B contain exactly
+ * the difference of their remaining mines.
+ * 
+ * Both rules are applied until nothing new can be deduced. The rules work on
+ * the CompactBoard and reuse their buffers, so apart from the results nothing
+ * is allocated.
+ * 
+ * @author tthielen
+ */
+public class RuleDeduction {
+  private FieldOfCells cells;
+  private CompactBoard board;
+
+  private boolean[] safe; // whether a cell has been deduced to be safe (but is still covered)
+  private ArrayList<Cell> safeCells; // the cells deduced to be safe
+  private ArrayList<Cell> mines; // the cells deduced (and marked) as mines
+
+  private int[] clueCells; // the indices of all clue cells
+  private int[] slot; // the position of every clue cell in clueCells (-1 if not a clue cell)
+  private int[] unknowns; // the unknown neighbours of clue cell i are unknowns[8 * i ... 8 * i + 7]
+  private int[] unknownCounts; // the amount of unknown neighbours of every clue cell
+  private int[] remaining; // the amount of unmarked mines among the neighbours of every clue cell
+  private int[] difference = new int[8]; // buffer for the subset rule
+
+  /**
+   * Constructor for the deduction.
+   * 
+   * @param cells the inner representation of the field of cells
+   */
+  public RuleDeduction(FieldOfCells cells) {
+    this.cells = cells;
+    this.board = cells.getBoard();
+    int size = board.size();
+    this.safe = new boolean[size];
+    this.safeCells = new ArrayList<Cell>();
+    this.mines = new ArrayList<Cell>();
+    this.clueCells = new int[size];
+    this.slot = new int[size];
+    Arrays.fill(slot, -1);
+    this.unknowns = new int[8 * size];
+    this.unknownCounts = new int[size];
+    this.remaining = new int[size];
+  }
+
+  /**
+   * Applies the rules until nothing new can be deduced. Deduced mines are marked
+   * immediately and can be retrieved via getMines().
+   * 
+   * @return the cells which are definitely safe
+   */
+  public ArrayList<Cell> deduce() {
+    for (Cell c : safeCells) {
+      safe[c.getIndex()] = false;
+    }
+    safeCells.clear();
+    mines = new ArrayList<Cell>();
+
+    boolean changed = true;
+    while (changed) {
+      int numOfClueCells = collectClueCells();
+      changed = applySingleRule(numOfClueCells);
+      if (!changed) {
+        changed = applySubsetRule(numOfClueCells);
+      }
+      for (int i = 0; i < numOfClueCells; i++) {
+        slot[clueCells[i]] = -1;
+      }
+    }
+    return new ArrayList<Cell>(safeCells);
+  }
+
+  /**
+   * Returns the mines deduced by the last call of deduce().
+   * 
+   * @return the deduced mines
+   */
+  public ArrayList<Cell> getMines() {
+    return this.mines;
+  }
+
+  /**
+   * Collects all clue cells together with their unknown neighbours and remaining
+   * mines.
+   * 
+   * @return the amount of clue cells
+   */
+  private int collectClueCells() {
+    IndexSet clueCellSet = board.getClueCells();
+    for (int i = 0; i < clueCellSet.size(); i++) {
+      int index = clueCellSet.get(i);
+      clueCells[i] = index;
+      slot[index] = i;
+      int n = board.getCoveredNeighboursNotMines(index, difference);
+      int m = 0;
+      for (int j = 0; j < n; j++) {
+        if (!safe[difference[j]]) {
+          unknowns[8 * i + m++] = difference[j];
+        }
+      }
+      unknownCounts[i] = m;
+      remaining[i] = board.getClue(index) - board.getNeighbourMineCount(index);
+    }
+    return clueCellSet.size();
+  }
+
+  /**
+   * Applies the rule to every single clue cell.
+   * 
+   * @param numOfClueCells the amount of clue cells
+   * @return whether anything new was deduced
+   */
+  private boolean applySingleRule(int numOfClueCells) {
+    boolean changed = false;
+    for (int i = 0; i < numOfClueCells; i++) {
+      if (unknownCounts[i] == 0) {
+        continue;
+      }
+      if (remaining[i] == 0) {
+        changed |= addSafeCells(unknowns, 8 * i, unknownCounts[i]);
+      } else if (remaining[i] == unknownCounts[i]) {
+        changed |= addMines(unknowns, 8 * i, unknownCounts[i]);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Applies the rule to every pair of clue cells which can share neighbours,
+   * i.e. which are at most two cells apart.
+   * 
+   * @param numOfClueCells the amount of clue cells
+   * @return whether anything new was deduced
+   */
+  private boolean applySubsetRule(int numOfClueCells) {
+    boolean changed = false;
+    for (int a = 0; a < numOfClueCells; a++) {
+      if (unknownCounts[a] == 0) {
+        continue;
+      }
+      int x = board.getX(clueCells[a]);
+      int y = board.getY(clueCells[a]);
+      for (int by = Math.max(0, y - 2); by <= Math.min(board.getNumOfRows() - 1, y + 2); by++) {
+        for (int bx = Math.max(0, x - 2); bx <= Math.min(board.getNumOfCols() - 1, x + 2); bx++) {
+          int b = slot[bx + by * board.getNumOfCols()];
+          if (b < 0 || b == a || unknownCounts[b] <= unknownCounts[a]) {
+            continue;
+          }
+          int n = subtract(b, a);
+          if (n < 0) {
+            // the unknown neighbours of a aren't a subset of the ones of b
+            continue;
+          }
+          int differenceMines = remaining[b] - remaining[a];
+          if (differenceMines == 0) {
+            changed |= addSafeCells(difference, 0, n);
+          } else if (differenceMines == n) {
+            changed |= addMines(difference, 0, n);
+          }
+        }
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Writes the unknown neighbours of clue cell b which aren't unknown neighbours
+   * of clue cell a into the difference buffer.
+   * 
+   * @param b the position of the bigger clue cell in clueCells
+   * @param a the position of the smaller clue cell in clueCells
+   * @return the size of the difference or -1 if a isn't a subset of b
+   */
+  private int subtract(int b, int a) {
+    int found = 0;
+    int n = 0;
+    for (int j = 8 * b; j < 8 * b + unknownCounts[b]; j++) {
+      boolean shared = false;
+      for (int k = 8 * a; k < 8 * a + unknownCounts[a]; k++) {
+        if (unknowns[j] == unknowns[k]) {
+          shared = true;
+          break;
+        }
+      }
+      if (shared) {
+        found++;
+      } else {
+        difference[n++] = unknowns[j];
+      }
+    }
+    return found == unknownCounts[a] ? n : -1;
+  }
+
+  /**
+   * Adds the given cells to the safe cells.
+   * 
+   * @param indices the array holding the indices of the cells
+   * @param from    the position of the first cell in indices
+   * @param count   the amount of cells
+   * @return whether any of the cells wasn't known to be safe before
+   */
+  private boolean addSafeCells(int[] indices, int from, int count) {
+    boolean changed = false;
+    for (int i = from; i < from + count; i++) {
+      if (!safe[indices[i]]) {
+        safe[indices[i]] = true;
+        safeCells.add(cells.getCell(indices[i]));
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Marks the given cells as mines.
+   * 
+   * @param indices the array holding the indices of the cells
+   * @param from    the position of the first cell in indices
+   * @param count   the amount of cells
+   * @return whether any of the cells wasn't marked before
+   */
+  private boolean addMines(int[] indices, int from, int count) {
+    boolean changed = false;
+    for (int i = from; i < from + count; i++) {
+      if (!board.isMine(indices[i])) {
+        Cell c = cells.getCell(indices[i]);
+        cells.markMine(c);
+        mines.add(c);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+}
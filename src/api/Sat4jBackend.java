@@ -0,0 +1,139 @@
+package api;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * Proves the cells with the default solver of sat4j, into which the clue
+ * constraints are translated via the given cardinality encoding.
+ * 
+ * @author tthielen
+ */
+public class Sat4jBackend implements SolverBackend {
+
+  // how many conflicts a query may take at most if the solver has a deadline
+  // (far more than any query of a minesweeper field needs)
+  private static final int MAX_CONFLICTS_WITH_DEADLINE = 100000;
+
+  private CardinalityEncoding encoding; // how clue constraints are encoded
+
+  /**
+   * Constructor for the backend.
+   * 
+   * @param encoding the encoding used for the clue constraints
+   */
+  public Sat4jBackend(CardinalityEncoding encoding) {
+    this.encoding = encoding;
+  }
+
+  @Override
+  public ConstraintSolver newSolver(int numOfVariables) {
+    ISolver solver = SolverFactory.newDefault();
+    solver.newVar(numOfVariables);
+    // with its default time based timeout, sat4j starts a new timer thread for
+    // every query, counting the conflicts (without a limit) needs none
+    solver.setTimeoutOnConflicts(Integer.MAX_VALUE);
+    return new Sat4jSolver(solver, encoding);
+  }
+
+  @Override
+  public String getName() {
+    return "sat4j (" + encoding.getName() + " encoding)";
+  }
+
+  /**
+   * A sat4j solver behind the ConstraintSolver interface.
+   */
+  private static class Sat4jSolver implements ConstraintSolver {
+    private ISolver solver;
+    private CardinalityEncoding encoding;
+    private Deadline deadline = Deadline.NONE;
+
+    private Sat4jSolver(ISolver solver, CardinalityEncoding encoding) {
+      this.solver = solver;
+      this.encoding = encoding;
+    }
+
+    @Override
+    public void addExactly(int[] variables, int k) throws ContradictionException {
+      encoding.addExactly(solver, variables, k);
+    }
+
+    @Override
+    public void addFact(int literal) throws ContradictionException {
+      solver.addClause(new VecInt(new int[] { literal }));
+    }
+
+    @Override
+    public void setDeadline(Deadline deadline) {
+      if (deadline.isBounded() != this.deadline.isBounded()) {
+        // a single query is bounded by its conflicts, as a time limit would cost
+        // a timer thread per query
+        solver.setTimeoutOnConflicts(deadline.isBounded() ? MAX_CONFLICTS_WITH_DEADLINE : Integer.MAX_VALUE);
+      }
+      this.deadline = deadline;
+    }
+
+    @Override
+    public boolean isSatisfiable() throws TimeoutException {
+      checkDeadline();
+      return solver.isSatisfiable();
+    }
+
+    @Override
+    public boolean isSatisfiable(int assumption) throws TimeoutException {
+      checkDeadline();
+      return solver.isSatisfiable(new VecInt(new int[] { assumption }));
+    }
+
+    /**
+     * Checks the deadline between the queries.
+     * 
+     * @throws TimeoutException if the deadline has already passed
+     */
+    private void checkDeadline() throws TimeoutException {
+      if (deadline.isExceeded()) {
+        throw new TimeoutException("The deadline has passed");
+      }
+    }
+
+    @Override
+    public int[] model() {
+      return solver.model();
+    }
+
+    @Override
+    public int getNumOfVariables() {
+      return solver.realNumberOfVariables();
+    }
+
+    @Override
+    public int getNumOfConstraints() {
+      return solver.nConstraints();
+    }
+
+    @Override
+    public long getNumOfConflicts() {
+      return statistic("conflicts");
+    }
+
+    @Override
+    public long getNumOfPropagations() {
+      return statistic("propagations");
+    }
+
+    /**
+     * Returns a statistic of the solver.
+     * 
+     * @param name the name of the statistic
+     * @return its value (0 if the solver doesn't provide it)
+     */
+    private long statistic(String name) {
+      Number value = solver.getStat().get(name);
+      return value != null ? value.longValue() : 0;
+    }
+  }
+}
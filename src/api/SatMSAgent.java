@@ -1,14 +1,19 @@
 package api;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-import org.sat4j.core.VecInt;
-import org.sat4j.minisat.SolverFactory;
 import org.sat4j.specs.ContradictionException;
-import org.sat4j.specs.ISolver;
 import org.sat4j.specs.TimeoutException;
-import org.sat4j.tools.ModelIterator;
 
 /**
  * A SAT based implementation of the MSAgent.
@@ -16,8 +21,8 @@ import org.sat4j.tools.ModelIterator;
  * Uses a proof by contradiction in propositional logic to decide whether a
  * given formula is satisfiable and uncovers (safe) cells accordingly.
  * 
- * The agent chooses a random cell should (via this algorithm) no safe cell be
- * found.
+ * The agent chooses the cell which is least likely a mine (or a random cell)
+ * should (via this algorithm) no safe cell be found.
  * 
  * @author tthielen
  */
@@ -25,8 +30,38 @@ public class SatMSAgent extends MSAgent {
 
   private boolean displayActivated = false; // used to display only the first iteration
   private boolean firstDecision = true; // used to force the agent to pick (0,0) on his first step
+  private boolean incrementalSolving = true; // used to prove all cells of a step with a single solver
+  private boolean componentDecomposition = true; // used to prove every frontier component on its own
+  private boolean persistentKnowledge = false; // used to keep one knowledge base over all steps
+  private boolean witnessPruning = true; // used to skip proofs which are refuted by a known model
+  private boolean zeroCascade = true; // used to uncover the whole region around a 0 at once
+  private ExecutorService executor = null; // used to prove the cells in parallel (null = sequentially)
+  private int parallelism = 1; // in how many tasks the cells of a component are split at most
+  private long stepTimeBudget = 0; // how long the proofs of a step may take (in ns, 0 = unbounded)
+  private long gameTimeBudget = 0; // how long the proofs of a game may take in total (in ns, 0 = unbounded)
+  private Deadline deadline = Deadline.NONE; // when the proofs of the current step have to stop
+  private GameMetrics metrics = null; // the metrics of every step of the last game (null = deactivated)
+  private StepMetrics stepMetrics = null; // the metrics of the current step (null = deactivated)
 
+  private static final int MIN_CELLS_PER_TASK = 8; // smaller tasks aren't worth their own solver
+  private static final int MIN_CELLS_FOR_WINDOWS = 256; // smaller frontiers are proven as a whole right away
+
+  private MSGame game; // the game which is played (the MSField of MSAgent or a faster one)
   private FieldOfCells cells; // the inner representation of the field of cells
+  private Random random; // used for all random decisions (seeded for reproducible games)
+  private SolverBackend backend = new Sat4jBackend(new NativeCardinalityEncoding()); // the solvers cells are proven with
+  private KnowledgeBase knowledgeBase = null; // the knowledge base persisting over all steps (if activated)
+  private RuleDeduction ruleDeduction; // the rules which are applied before the SAT solver (null = deactivated)
+  private WindowedProver windowedProver; // proves cells within windows first (null = deactivated)
+  private MineProbabilities mineProbabilities; // picks the safest guess (null = random guesses)
+  private long numOfMines = -1; // how many mines the field has in total, if the agent is told (-1 = unknown)
+  private ArrayList<CardinalityConstraint> stepConstraints; // the constraints generated in this step (null = none)
+
+  private int steps = 0; // how many steps the last game took
+  private int satSteps = 0; // how many steps needed the SAT solver
+  private long numOfVariables = 0; // variables of all knowledge bases (summed up over all SAT steps)
+  private long numOfConstraints = 0; // constraints of all knowledge bases (summed up over all SAT steps)
+  private long numOfSatCalls = 0; // how many times the solver was called (over all SAT steps)
 
   /**
    * Constructor: Initialises the random int generator as well as the field of
@@ -35,8 +70,48 @@ public class SatMSAgent extends MSAgent {
    * @param field
    */
   public SatMSAgent(MSField field) {
-    super(field);
-    cells = new FieldOfCells(this.field.getNumOfCols(), this.field.getNumOfRows());
+    this(field, new Random());
+  }
+
+  /**
+   * Constructor: Initialises the field of cells and uses the given random int
+   * generator for all random decisions, so a game can be reproduced by seeding
+   * it.
+   * 
+   * @param field
+   * @param random the random int generator
+   */
+  public SatMSAgent(MSField field, Random random) {
+    this(new MSFieldGame(field), random);
+  }
+
+  /**
+   * Constructor: Plays the given game (e.g. one on a parsed FieldLayout) instead
+   * of an MSField.
+   * 
+   * @param game   the game
+   * @param random the random int generator
+   */
+  public SatMSAgent(MSGame game, Random random) {
+    this(game, random, new FieldOfCells(game.getNumOfCols(), game.getNumOfRows()));
+  }
+
+  /**
+   * Constructor: Starts from the given (already partly uncovered) field of
+   * cells, e.g. a snapshot of a game used by the benchmarks.
+   * 
+   * @param game   the game
+   * @param random the random int generator
+   * @param cells  the inner representation of the field of cells
+   */
+  SatMSAgent(MSGame game, Random random, FieldOfCells cells) {
+    super(game instanceof MSFieldGame ? ((MSFieldGame) game).getField() : null);
+    this.game = game;
+    this.random = random;
+    this.cells = cells;
+    ruleDeduction = new RuleDeduction(cells);
+    windowedProver = new WindowedProver(cells);
+    mineProbabilities = new MineProbabilities(cells);
   }
 
   /**
@@ -45,16 +120,30 @@ public class SatMSAgent extends MSAgent {
   @Override
   public boolean solve() {
 
+    if (persistentKnowledge) {
+      knowledgeBase = new KnowledgeBase(cells.size(), backend);
+    }
     ArrayList<Cell> safeCells = new ArrayList<Cell>();
-    int numOfRows = this.field.getNumOfRows();
-    int numOfCols = this.field.getNumOfCols();
+    int numOfRows = game.getNumOfRows();
+    int numOfCols = game.getNumOfCols();
     int x, y, feedback;
+    Deadline gameDeadline = gameTimeBudget > 0 ? Deadline.after(gameTimeBudget) : Deadline.NONE;
+    if (metrics != null) {
+      metrics = new GameMetrics();
+    }
 
     do {
       // start of a step
+      steps++;
       long start = System.currentTimeMillis(); // time at the beginning of step
+      long stepStart = System.nanoTime();
+      deadline = stepTimeBudget > 0 ? gameDeadline.earliest(Deadline.after(stepTimeBudget)) : gameDeadline;
+      if (metrics != null) {
+        stepMetrics = metrics.newStep();
+        stepMetrics.set(StepMetrics.FRONTIER, cells.getBoard().getRelevantCells().size());
+      }
       if (displayActivated) {
-        System.out.println(field);
+        System.out.println(game);
       }
       // uncover cell (0,0) on the first step
       if (firstDecision) {
@@ -64,11 +153,12 @@ public class SatMSAgent extends MSAgent {
       } else {
         Cell safeCell = null;
 
+        // safe cells may have been uncovered in the meantime (around a 0)
+        safeCells.removeIf(c -> c.isUncovered());
+
         // in case no safe cells are remaining in safeCells:
         if (safeCells.isEmpty()) {
 
-          int[][] clauses = cnfGenerator(); // generate the clauses array
-
           /*
            * general idea: For every cell which neighbours an uncovered cell, add a clause
            * to the generated clauses which is used to proof whether the cell is either
@@ -81,7 +171,16 @@ public class SatMSAgent extends MSAgent {
            */
 
           long startCalculation = System.currentTimeMillis();
-          safeCells = calculatesafeCells(clauses);
+          long proofStart = System.nanoTime();
+          int coveredNotMines = cells.getBoard().getNumOfCoveredNotMines();
+          safeCells = findSafeCells();
+          if (stepMetrics != null) {
+            // the rule deduction is recorded on its own
+            stepMetrics.add(StepMetrics.PROOF_NANOS,
+                System.nanoTime() - proofStart - stepMetrics.get(StepMetrics.RULE_NANOS));
+            stepMetrics.add(StepMetrics.SAFE_CELLS, safeCells.size());
+            stepMetrics.add(StepMetrics.MINES, coveredNotMines - cells.getBoard().getNumOfCoveredNotMines());
+          }
           if (displayActivated) {
             System.out.println("The calculation of safe cells and mines took: "
                 + (System.currentTimeMillis() - startCalculation) + "ms");
@@ -99,24 +198,36 @@ public class SatMSAgent extends MSAgent {
             }
           }
 
-          if (safeCells.isEmpty()) {
-            // if no safe cells could be found, choose a random cell which hasn't been
-            // marked as a mine
-            ArrayList<Cell> candidates = cells.getAllCoveredNotDefinitelyMines();
+          long guessStart = System.nanoTime();
+          if (safeCells.isEmpty() && mineProbabilities != null && !deadline.isExceeded()
+              && mineProbabilities.calculate(stepConstraints != null ? stepConstraints : cnfGenerator(), numOfMines,
+                  deadline)) {
+            // if no safe cells could be found, guess the cell which is least likely a mine
+            safeCell = mineProbabilities.getSafestCell(random);
+            if (displayActivated) {
+              System.out.println("Guessing (" + safeCell.getX() + "," + safeCell.getY() + ") with a mine probability of "
+                  + mineProbabilities.getProbability(safeCell));
+            }
+            recordGuess(guessStart);
+          } else if (safeCells.isEmpty()) {
+            // if no safe cells could be found (or counted in time), choose a random cell which
+            // hasn't been marked as a mine (straight from the bitsets, without listing them)
+            CompactBoard board = cells.getBoard();
+            int numOfCandidates = board.getNumOfCoveredNotMines();
             if (displayActivated) {
-              System.out.println(candidates.size() + " Random Candidates:");
-              for (Cell c : candidates) {
+              System.out.println(numOfCandidates + " Random Candidates:");
+              for (Cell c : cells.getAllCoveredNotDefinitelyMines()) {
                 System.out.print("(" + c.getX() + "," + c.getY() + ") ");
               }
               System.out.println();
             }
-            Random ran = new Random();
-            int randIndex = ran.nextInt(candidates.size());
-            safeCell = candidates.get(randIndex);
+            int randIndex = random.nextInt(numOfCandidates);
+            safeCell = cells.getCell(board.getCoveredNotMine(randIndex));
+            recordGuess(guessStart);
           } else if (safeCells.size() > 1) {
             // if multiple safe cells have been found, choose one of them at random and
             // remove it from safeCells
-            int randIndex = (int) (Math.random() * safeCells.size());
+            int randIndex = random.nextInt(safeCells.size());
             safeCell = safeCells.get(randIndex);
             safeCells.remove(randIndex);
           } else {
@@ -131,8 +242,7 @@ public class SatMSAgent extends MSAgent {
           if (displayActivated) {
             System.out.println("Selection process skipped, as there are still safe cells remaining");
           }
-          Random ran = new Random();
-          int randIndex = ran.nextInt(safeCells.size());
+          int randIndex = random.nextInt(safeCells.size());
           safeCell = safeCells.get(randIndex);
           safeCells.remove(randIndex);
           if (displayActivated) {
@@ -147,24 +257,35 @@ public class SatMSAgent extends MSAgent {
         } else {
           // this shouldn't happen (!)
           System.out.println("Error: No suitable best cell found!\nChoosing completely random cell.");
-          Random rand = new Random();
-          x = rand.nextInt(numOfCols);
-          y = rand.nextInt(numOfRows);
+          x = random.nextInt(numOfCols);
+          y = random.nextInt(numOfRows);
         }
       }
 
       if (displayActivated) {
         System.out.println("Uncovering (" + x + "," + y + ")");
       }
-      feedback = field.uncover(x, y);
-      cells.uncoverCell(x, y, feedback);
+      long uncoverStart = System.nanoTime();
+      feedback = uncover(x, y);
+      if (zeroCascade && feedback == 0) {
+        // all neighbours of a 0 are safe, so the whole empty region is uncovered at once
+        int uncovered = uncoverZeroRegion(x, y);
+        if (displayActivated) {
+          System.out.println("Uncovered " + uncovered + " more cell(s) around the 0");
+        }
+      }
       // end of a step
+      if (stepMetrics != null) {
+        long end = System.nanoTime();
+        stepMetrics.add(StepMetrics.UNCOVER_NANOS, end - uncoverStart);
+        stepMetrics.add(StepMetrics.STEP_NANOS, end - stepStart);
+      }
       if (displayActivated) {
         System.out.println("This step took " + (System.currentTimeMillis() - start) + "ms");
       }
-    } while (feedback >= 0 && !field.solved());
+    } while (feedback >= 0 && !game.solved());
 
-    if (field.solved()) {
+    if (game.solved()) {
       if (displayActivated) {
         System.out.println("\nSolved the field");
       }
@@ -178,72 +299,320 @@ public class SatMSAgent extends MSAgent {
   }
 
   /**
-   * Calculates the best cells via a SAT solver and an indirect proof.
+   * Uncovers the cell at the given coordinates and adds its clue to the inner
+   * representation of the field (and the persistent knowledge base).
+   * 
+   * @param x the x-coordinate of the cell
+   * @param y the y-coordinate of the cell
+   * @return the clue of the cell or -1 if it's a mine
+   */
+  private int uncover(int x, int y) {
+    int feedback = game.uncover(x, y);
+    cells.uncoverCell(x, y, feedback);
+    if (knowledgeBase != null && feedback >= 0) {
+      try {
+        knowledgeBase.addClue(cells.getCell(x, y), cells.getBoard().getNeighbourTable());
+      } catch (ContradictionException e) {
+        // the clue can't contradict the knowledge base, as it describes the actual field
+        System.out.println("Error: The clue contradicts the knowledge base!");
+      }
+    }
+    return feedback;
+  }
+
+  /**
+   * Uncovers the whole region around the 0 at the given coordinates: all
+   * neighbours of a 0 are uncovered, and if one of them is a 0 as well, so are
+   * its neighbours.
+   * 
+   * @param x the x-coordinate of the 0
+   * @param y the y-coordinate of the 0
+   * @return how many cells have been uncovered
+   */
+  private int uncoverZeroRegion(int x, int y) {
+    CompactBoard board = cells.getBoard();
+    NeighbourTable neighbourTable = board.getNeighbourTable();
+    ArrayDeque<Integer> zeros = new ArrayDeque<Integer>();
+    zeros.add(x + y * board.getNumOfCols());
+    int uncovered = 0;
+
+    while (!zeros.isEmpty()) {
+      int index = zeros.poll();
+      for (int k = neighbourTable.start(index); k < neighbourTable.end(index); k++) {
+        int neighbour = neighbourTable.getNeighbour(k);
+        if (!board.isUncovered(neighbour)) {
+          uncovered++;
+          if (uncover(board.getX(neighbour), board.getY(neighbour)) == 0) {
+            zeros.add(neighbour);
+          }
+        }
+      }
+    }
+    return uncovered;
+  }
+
+  /**
+   * Calculates the best cells of the current step, either via the persistent
+   * knowledge base or by generating the constraints of all clue cells.
    * 
-   * @param clauses the generated clauses from all clue cells
    * @return the or all best cells
    */
-  private ArrayList<Cell> calculatesafeCells(int[][] clauses) {
+  ArrayList<Cell> findSafeCells() {
+    stepConstraints = null;
+    if (ruleDeduction != null) {
+      // most steps can be decided by the simple rules alone
+      long ruleStart = System.nanoTime();
+      ArrayList<Cell> safeCells = ruleDeduction.deduce();
+      if (stepMetrics != null) {
+        stepMetrics.add(StepMetrics.RULE_NANOS, System.nanoTime() - ruleStart);
+      }
+      if (knowledgeBase != null) {
+        try {
+          for (Cell c : ruleDeduction.getMines()) {
+            knowledgeBase.addMine(c);
+          }
+        } catch (ContradictionException e) {
+          // a deduced mine can't contradict the knowledge base
+          System.out.println("Error: Deduced mine contradicts the knowledge base!");
+        }
+      }
+      if (!safeCells.isEmpty()) {
+        if (displayActivated) {
+          System.out.println("Deduced " + safeCells.size() + " safe cell(s) and " + ruleDeduction.getMines().size()
+              + " mine(s) without the SAT solver");
+        }
+        return safeCells;
+      }
+    }
+
+    if (deadline.isExceeded()) {
+      // no time is left for any proof, so the agent has to guess
+      reportTimeout();
+      return new ArrayList<Cell>();
+    }
+    satSteps++;
+    if (windowedProver != null && cells.getBoard().getRelevantCells().size() >= MIN_CELLS_FOR_WINDOWS) {
+      ArrayList<Cell> safeCells = calculatesafeCellsWindowed();
+      if (!safeCells.isEmpty() || deadline.isExceeded()) {
+        return safeCells;
+      }
+      // nothing safe within the windows, so the cells are proven against the whole
+      // frontier
+    }
+    if (knowledgeBase != null) {
+      return calculatesafeCellsPersistent();
+    }
+
+    // generate the constraints of all clue cells (a guess counts their models)
+    ArrayList<CardinalityConstraint> constraints = cnfGenerator();
+    stepConstraints = constraints;
+
+    ArrayList<ArrayList<CardinalityConstraint>> components;
+    if (componentDecomposition) {
+      // components which share no variables can be proven independently
+      components = FrontierComponents.split(constraints);
+    } else {
+      components = new ArrayList<ArrayList<CardinalityConstraint>>();
+      components.add(constraints);
+    }
+    if (displayActivated) {
+      System.out.println("The frontier consists of " + components.size() + " component(s)");
+    }
+
+    if (executor != null) {
+      return calculatesafeCellsParallel(components);
+    }
     ArrayList<Cell> safeCells = new ArrayList<Cell>();
+    for (ArrayList<CardinalityConstraint> component : components) {
+      if (incrementalSolving) {
+        safeCells.addAll(calculatesafeCellsIncremental(component));
+      } else {
+        safeCells.addAll(calculatesafeCells(component));
+      }
+    }
+    return safeCells;
+  }
+
+  /**
+   * Calculates the best cells by proving every relevant cell only against the
+   * clue cells in a window around it.
+   * 
+   * @return the or all best cells (which may miss some of the whole frontier)
+   */
+  private ArrayList<Cell> calculatesafeCellsWindowed() {
+    ArrayList<Cell> safeCells = windowedProver.prove(backend, deadline);
+    countSatCalls(windowedProver.getSatCalls());
+    countSolverWork(windowedProver.getConflicts(), windowedProver.getPropagations());
+    if (knowledgeBase != null) {
+      try {
+        for (Cell c : windowedProver.getMines()) {
+          knowledgeBase.addMine(c);
+        }
+        for (Cell c : safeCells) {
+          knowledgeBase.addSafe(c);
+        }
+      } catch (ContradictionException e) {
+        // a proven fact can't contradict the knowledge base
+        System.out.println("Error: Proven fact contradicts the knowledge base!");
+      }
+    }
+    if (displayActivated) {
+      System.out.println("Proved " + safeCells.size() + " safe cell(s) and " + windowedProver.getMines().size()
+          + " mine(s) within windows");
+    }
+    return safeCells;
+  }
+
+  /**
+   * Calculates the best cells via the persistent knowledge base, which already
+   * contains all clues uncovered so far.
+   * 
+   * @return the or all best cells
+   */
+  private ArrayList<Cell> calculatesafeCellsPersistent() {
+    ArrayList<Cell> safeCells = new ArrayList<Cell>();
+    numOfVariables += knowledgeBase.getNumOfVariables();
+    numOfConstraints += knowledgeBase.getNumOfConstraints();
+    if (stepMetrics != null) {
+      stepMetrics.add(StepMetrics.VARIABLES, knowledgeBase.getNumOfVariables());
+      stepMetrics.add(StepMetrics.CONSTRAINTS, knowledgeBase.getNumOfConstraints());
+    }
+    if (displayActivated) {
+      System.out.println("Knowledge base (" + backend.getName() + ", persistent): "
+          + knowledgeBase.getNumOfVariables() + " variables, " + knowledgeBase.getNumOfConstraints() + " constraints");
+    }
+
+    knowledgeBase.setDeadline(deadline);
+    long conflicts = knowledgeBase.getNumOfConflicts();
+    long propagations = knowledgeBase.getNumOfPropagations();
+    int satCalls = 0;
+    WitnessModels witnesses = null;
+    try {
+      if (witnessPruning) {
+        witnesses = new WitnessModels(cells.size());
+        satCalls++;
+        if (knowledgeBase.isSatisfiable()) {
+          witnesses.add(knowledgeBase.model());
+        }
+      }
+    } catch (TimeoutException e) {
+      reportTimeout();
+    }
 
     for (Cell c : cells.getAllRelevantCells()) {
-      for (int j = 0; j < 2; j++) {
-        int index = c.getIndex();
-        int[][] clausesIndirectProof = new int[clauses.length + 1][];
-        for (int i = 0; i < clauses.length; i++) {
-          clausesIndirectProof[i] = clauses[i];
+      if (deadline.isExceeded()) {
+        // act on the cells proven so far
+        reportTimeout();
+        break;
+      }
+      int variable = knowledgeBase.variable(c);
+      try {
+        // We perform a proof by contradiction (unless a known model refutes it)
+        if (witnesses == null || !witnesses.canBeMine(variable)) {
+          satCalls++;
+          if (knowledgeBase.isSafe(c)) {
+            // KB ⊨ ¬c (c is definitely not a mine)
+            safeCells.add(c);
+            knowledgeBase.addSafe(c);
+            continue;
+          } else if (witnesses != null) {
+            witnesses.add(knowledgeBase.model());
+          }
+        }
+        if (witnesses == null || !witnesses.canBeSafe(variable)) {
+          satCalls++;
+          if (knowledgeBase.isMine(c)) {
+            // KB ⊨ c (c is definitely a mine)
+            cells.markMine(c);
+            knowledgeBase.addMine(c);
+          } else if (witnesses != null) {
+            witnesses.add(knowledgeBase.model());
+          }
         }
+      } catch (ContradictionException e) {
+        // adding a proven fact can't contradict the knowledge base
+        System.out.println("Error: Proven fact contradicts the knowledge base!");
+      } catch (TimeoutException e) {
+        // act on the cells proven so far
+        reportTimeout();
+        break;
+      }
+    }
+    countSatCalls(satCalls);
+    countSolverWork(knowledgeBase.getNumOfConflicts() - conflicts,
+        knowledgeBase.getNumOfPropagations() - propagations);
+    return safeCells;
+  }
+
+  /**
+   * Calculates the best cells via a SAT solver and an indirect proof.
+   * 
+   * @param constraints the generated constraints from (a component of) the clue
+   *                    cells
+   * @return the or all best cells
+   */
+  private ArrayList<Cell> calculatesafeCells(ArrayList<CardinalityConstraint> constraints) {
+    ArrayList<Cell> safeCells = new ArrayList<Cell>();
+    int[] variables = FrontierComponents.getVariables(constraints);
+
+    for (int i = 0; i < variables.length; i++) {
+      if (deadline.isExceeded()) {
+        // act on the cells proven so far
+        reportTimeout();
+        break;
+      }
+      Cell c = cells.getCell(variables[i]);
+      for (int j = 0; j < 2; j++) {
+        int index = i + 1; // the variable of c in the solver
         if (j != 0) {
           index *= -1;
         }
-        // Add the (crucial) clause for the proof by contradiction
-        clausesIndirectProof[clauses.length] = new int[] { index };
-
-        // Set up the SATsolver
-        ISolver solver = new ModelIterator(SolverFactory.newDefault());
-        final int MAXVAR = cells.size(); // (max) number of variables
-        final int NBCLAUSES = clausesIndirectProof.length; // (max) number of clauses
-        solver.newVar(MAXVAR);
-        solver.setExpectedNumberOfClauses(NBCLAUSES);
-
-        // iterate through the clauses and add them to the solver
-        for (int i = 0; i < NBCLAUSES; i++) {
-          int[] clause = clausesIndirectProof[i];
-          try {
-            solver.addClause(new VecInt(clause));
-          } catch (ContradictionException e) {
-            /*
-             * The exception occurs not only when adding a null clause or a clause which
-             * itself is a contradiction, but also when the clause contains only falsified
-             * literals after unit propagation.
-             * 
-             * We use this to our advantage, as that automatically means that both the
-             * clause {c} as well as {¬c} exist in the formula, which therefore is
-             * unsatisfiable.
-             */
-            if (j == 0) {
-              // KB ⊨ ¬c (c is definitely not a mine)
-              safeCells.add(c);
-            } else {
-              // KB ⊨ c (c is definitely a mine)
-              c.markMine();
-            }
+
+        // Set up the solver
+        ConstraintSolver solver = backend.newSolver(variables.length);
+        solver.setDeadline(deadline);
+        try {
+          loadKnowledgeBase(solver, constraints, variables);
+          if (i == 0 && j == 0) {
+            countKnowledgeBase(solver);
+          }
+          // Add the (crucial) clause for the proof by contradiction
+          solver.addFact(index);
+        } catch (ContradictionException e) {
+          /*
+           * The exception occurs not only when adding a null clause or a clause which
+           * itself is a contradiction, but also when the clause contains only falsified
+           * literals after unit propagation.
+           * 
+           * We use this to our advantage, as that automatically means that both the
+           * clause {c} as well as {¬c} exist in the formula, which therefore is
+           * unsatisfiable.
+           */
+          if (j == 0) {
+            // KB ⊨ ¬c (c is definitely not a mine)
+            safeCells.add(c);
+          } else {
+            // KB ⊨ c (c is definitely a mine)
+            cells.markMine(c);
           }
+          continue;
         }
         try {
           // We perform a proof by contradiction
+          countSatCalls(1);
           if (!solver.isSatisfiable()) {
             if (j == 0) {
               // KB ⊨ ¬c (c is definitely not a mine)
               safeCells.add(c);
             } else {
               // KB ⊨ c (c is definitely a mine)
-              c.markMine();
+              cells.markMine(c);
             }
           }
+          countSolverWork(solver.getNumOfConflicts(), solver.getNumOfPropagations());
         } catch (TimeoutException e) {
-          System.out.println("Timeout occured while testing for satisfiability!");
-          e.printStackTrace();
+          reportTimeout();
+          return safeCells;
         }
       }
     }
@@ -251,80 +620,283 @@ public class SatMSAgent extends MSAgent {
   }
 
   /**
-   * Generates an array of clauses (which are itself arrays) modelling a cnf
-   * formula of our problem.
+   * Calculates the best cells via a single SAT solver which proves all cells of
+   * the constraints via assumptions.
    * 
-   * @return a 2D-array of all clauses
+   * @param constraints the generated constraints from (a component of) the clue
+   *                    cells
+   * @return the or all best cells
    */
-  private int[][] cnfGenerator() {
-    ArrayList<int[]> clausesList = new ArrayList<int[]>();
+  private ArrayList<Cell> calculatesafeCellsIncremental(ArrayList<CardinalityConstraint> constraints) {
+    int[] variables = FrontierComponents.getVariables(constraints);
+    ArrayList<Cell> mines = new ArrayList<Cell>();
+    ArrayList<Cell> safeCells = proveCells(constraints, variables, 0, variables.length, mines);
+    for (Cell c : mines) {
+      cells.markMine(c);
+    }
+    return safeCells;
+  }
+
+  /**
+   * Calculates the best cells of all components in parallel. The cells of every
+   * component are split into tasks, each of which proves its cells with its own
+   * solver (as solvers must not be shared between threads). The mines are
+   * only marked after all tasks are finished, so the cells are never modified
+   * concurrently.
+   * 
+   * @param components the connected components of the constraints
+   * @return the or all best cells
+   */
+  private ArrayList<Cell> calculatesafeCellsParallel(ArrayList<ArrayList<CardinalityConstraint>> components) {
+    ArrayList<Cell> safeCells = new ArrayList<Cell>();
+    List<Cell> mines = Collections.synchronizedList(new ArrayList<Cell>());
+    ArrayList<Future<ArrayList<Cell>>> tasks = new ArrayList<Future<ArrayList<Cell>>>();
+
+    for (ArrayList<CardinalityConstraint> component : components) {
+      int[] variables = FrontierComponents.getVariables(component);
+      int cellsPerTask = Math.max(MIN_CELLS_PER_TASK, (variables.length + parallelism - 1) / parallelism);
+      for (int from = 0; from < variables.length; from += cellsPerTask) {
+        int start = from;
+        int end = Math.min(from + cellsPerTask, variables.length);
+        tasks.add(executor.submit(() -> proveCells(component, variables, start, end, mines)));
+      }
+    }
+
+    for (Future<ArrayList<Cell>> task : tasks) {
+      try {
+        safeCells.addAll(task.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        System.out.println("Interrupted while waiting for the proofs!");
+        // act on the safe cells proven so far (like after a timeout), the mines
+        // aren't marked as the cancelled tasks may still be adding to them
+        for (Future<ArrayList<Cell>> other : tasks) {
+          other.cancel(true);
+        }
+        return safeCells;
+      } catch (ExecutionException e) {
+        System.out.println("A proof failed!");
+        e.printStackTrace();
+      }
+    }
+    for (Cell c : mines) {
+      cells.markMine(c);
+    }
+    return safeCells;
+  }
+
+  /**
+   * Proves the given range of cells via a single SAT solver which is loaded with
+   * the constraints once. Every indirect proof is then run with the respective
+   * literal as an assumption, so the solver (and the clauses it learned) is
+   * reused for all cells of the range.
+   * 
+   * Doesn't modify any cell, so it can be called from multiple threads at once.
+   * 
+   * @param constraints the generated constraints from (a component of) the clue
+   *                    cells
+   * @param variables   the indices of all cells occurring in the constraints
+   * @param from        the first position in variables which is proven
+   * @param to          the position in variables after the last proven one
+   * @param mines       the list the cells which are definitely mines are added
+   *                    to
+   * @return the safe cells of the range
+   */
+  private ArrayList<Cell> proveCells(ArrayList<CardinalityConstraint> constraints, int[] variables, int from, int to,
+      List<Cell> mines) {
+    ArrayList<Cell> safeCells = new ArrayList<Cell>();
 
-    for (Cell c : cells.getClueCells()) {
-      ArrayList<Cell> coveredNeighbourCellsNotMines = cells.getCoveredNeighbourCellsNotMines(c.getX(), c.getY());
-      int n = coveredNeighbourCellsNotMines.size();
+    // Set up the solver
+    ConstraintSolver solver = backend.newSolver(variables.length);
+    solver.setDeadline(deadline);
+    try {
+      loadKnowledgeBase(solver, constraints, variables);
+      if (from == 0) {
+        countKnowledgeBase(solver);
+      }
+    } catch (ContradictionException e) {
+      // the constraints alone can't be contradictory, as they describe the actual field
+      System.out.println("Error: The knowledge base is unsatisfiable!");
+      return safeCells;
+    }
 
-      boolean[][] truthTable = generateTruthTable(n); // Generate a table with number of rows = 2^n
+    int satCalls = 0;
+    WitnessModels witnesses = null;
+    try {
+      if (witnessPruning) {
+        witnesses = new WitnessModels(variables.length);
+        satCalls++;
+        if (solver.isSatisfiable()) {
+          witnesses.add(solver.model());
+        }
+      }
+    } catch (TimeoutException e) {
+      reportTimeout();
+    }
 
-      for (boolean[] truthRow : truthTable) {
-        // Check if the condition is not reached (= 0 in truth table)
-        int trueCount = 0;
-        for (boolean b : truthRow) {
-          if (b) {
-            trueCount++;
+    for (int i = from; i < to; i++) {
+      if (deadline.isExceeded()) {
+        // act on the cells proven so far
+        reportTimeout();
+        break;
+      }
+      Cell c = cells.getCell(variables[i]);
+      int index = i + 1; // the variable of c in the solver
+      try {
+        // We perform a proof by contradiction by assuming c (resp. ¬c), unless a
+        // known model already refutes it
+        if (witnesses == null || !witnesses.canBeMine(index)) {
+          satCalls++;
+          if (!solver.isSatisfiable(index)) {
+            // KB ⊨ ¬c (c is definitely not a mine)
+            safeCells.add(c);
+            solver.addFact(-index);
+            continue;
+          } else if (witnesses != null) {
+            witnesses.add(solver.model());
           }
         }
-        // For every truthRow which is not a propositional model for our cell
-        if (trueCount != c.getClue() - cells.getNeighbourMineCount(c.getX(), c.getY())) {
-          // Create a CNF clause with the respective indices as variables and add it to
-          // the list
-          int[] clause = new int[n];
-          for (int i = 0; i < truthRow.length; i++) {
-            int index = coveredNeighbourCellsNotMines.get(i).getIndex();
-            clause[i] = truthRow[i] ? -index : index;
+        if (witnesses == null || !witnesses.canBeSafe(index)) {
+          satCalls++;
+          if (!solver.isSatisfiable(-index)) {
+            // KB ⊨ c (c is definitely a mine)
+            mines.add(c);
+            solver.addFact(index);
+          } else if (witnesses != null) {
+            witnesses.add(solver.model());
           }
-          clausesList.add(clause);
         }
+      } catch (ContradictionException e) {
+        // adding a proven literal can't contradict the knowledge base
+        System.out.println("Error: Proven literal contradicts the knowledge base!");
+      } catch (TimeoutException e) {
+        // act on the cells proven so far
+        reportTimeout();
+        break;
       }
     }
-    // fill the 2D array with the clauses from the list
-    int[][] clauses = new int[clausesList.size()][];
-    for (int i = 0; i < clauses.length; i++) {
-      clauses[i] = clausesList.get(i);
+    countSatCalls(satCalls);
+    countSolverWork(solver.getNumOfConflicts(), solver.getNumOfPropagations());
+    return safeCells;
+  }
+
+  /**
+   * Adds the given constraints to the solver. The cells are numbered by their
+   * position in variables (starting at 1), so the solver only declares the cells
+   * which actually occur in the constraints.
+   * 
+   * @param solver      the (empty) solver for variables.length variables
+   * @param constraints the generated constraints from (a component of) the clue
+   *                    cells
+   * @param variables   the indices of all cells occurring in the constraints
+   * @throws ContradictionException if the solver detects a trivial
+   *                                contradiction
+   */
+  private void loadKnowledgeBase(ConstraintSolver solver, ArrayList<CardinalityConstraint> constraints,
+      int[] variables) throws ContradictionException {
+    HashMap<Integer, Integer> solverVariables = new HashMap<Integer, Integer>();
+    for (int i = 0; i < variables.length; i++) {
+      solverVariables.put(variables[i], i + 1);
+    }
+    for (CardinalityConstraint constraint : constraints) {
+      int[] constraintVariables = new int[constraint.getVariables().length];
+      for (int i = 0; i < constraintVariables.length; i++) {
+        constraintVariables[i] = solverVariables.get(constraint.getVariables()[i]);
+      }
+      solver.addExactly(constraintVariables, constraint.getCount());
+    }
+  }
+
+  /**
+   * Reports that the deadline has passed, so the remaining cells of the step
+   * aren't proven.
+   */
+  private void reportTimeout() {
+    if (stepMetrics != null) {
+      stepMetrics.set(StepMetrics.TIMEOUT, 1);
+    }
+    if (displayActivated) {
+      System.out.println("The deadline has passed, the remaining cells aren't proven");
     }
-    return clauses;
   }
 
   /**
-   * Generates a truth table according to the amount of neighbours the clue cell
-   * has.
+   * Adds the given amount of solver calls to the statistics.
    * 
-   * @param n the amount of neighbours of the clue cell
-   * @return a truth table of all possible mine placements (disregarding the clue
-   *         itself)
+   * @param satCalls how many times the solver was called
    */
-  private boolean[][] generateTruthTable(int n) {
-    boolean[][] truthTable = new boolean[(int) Math.pow(2.0, n)][n];
-    boolean[] truthRow = new boolean[n];
+  private synchronized void countSatCalls(int satCalls) {
+    numOfSatCalls += satCalls;
+    if (stepMetrics != null) {
+      stepMetrics.add(StepMetrics.SAT_CALLS, satCalls);
+    }
+  }
 
-    for (int i = 0; i < n; i++) {
-      truthRow[i] = false;
+  /**
+   * Adds the work of a solver to the metrics of the current step.
+   * 
+   * @param conflicts    how many conflicts the solver ran into
+   * @param propagations how many assignments the solver propagated
+   */
+  private synchronized void countSolverWork(long conflicts, long propagations) {
+    if (stepMetrics != null) {
+      stepMetrics.add(StepMetrics.CONFLICTS, conflicts);
+      stepMetrics.add(StepMetrics.PROPAGATIONS, propagations);
     }
-    int x = 1;
-    for (int i = 0; i < n; i++) {
-      if (truthRow[i]) {
-        truthRow[i] = false;
-      } else {
-        truthRow[i] = true;
-        i = -1;
-        truthTable[x] = new boolean[n];
-        for (int j = 0; j < n; j++) {
-          truthTable[x][j] = truthRow[j];
-        }
-        x++;
-        continue; // building of new row in truth table complete
+  }
+
+  /**
+   * Adds a guess to the metrics of the current step.
+   * 
+   * @param guessStart the time (of System.nanoTime()) the guess started at
+   */
+  private void recordGuess(long guessStart) {
+    if (stepMetrics != null) {
+      stepMetrics.set(StepMetrics.GUESS, 1);
+      stepMetrics.add(StepMetrics.GUESS_NANOS, System.nanoTime() - guessStart);
+    }
+  }
+
+  /**
+   * Adds the size of the freshly loaded knowledge base to the statistics.
+   * 
+   * @param solver the solver holding the knowledge base
+   */
+  private synchronized void countKnowledgeBase(ConstraintSolver solver) {
+    numOfVariables += solver.getNumOfVariables();
+    numOfConstraints += solver.getNumOfConstraints();
+    if (stepMetrics != null) {
+      stepMetrics.add(StepMetrics.VARIABLES, solver.getNumOfVariables());
+      stepMetrics.add(StepMetrics.CONSTRAINTS, solver.getNumOfConstraints());
+    }
+    if (displayActivated) {
+      System.out.println("Knowledge base (" + backend.getName() + "): " + solver.getNumOfVariables() + " variables, "
+          + solver.getNumOfConstraints() + " constraints");
+    }
+  }
+
+  /**
+   * Generates the cardinality constraints of all clue cells, which (once encoded)
+   * form the cnf formula of our problem.
+   * 
+   * @return a list of all constraints
+   */
+  ArrayList<CardinalityConstraint> cnfGenerator() {
+    ArrayList<CardinalityConstraint> constraints = new ArrayList<CardinalityConstraint>();
+    CompactBoard board = cells.getBoard();
+    int[] neighbours = new int[8];
+
+    IndexSet clueCells = board.getClueCells();
+    for (int k = 0; k < clueCells.size(); k++) {
+      int index = clueCells.get(k);
+      int n = board.getCoveredNeighboursNotMines(index, neighbours);
+      // clue cells whose covered neighbours are all marked as mines tell us nothing
+      if (n > 0) {
+        int mines = board.getClue(index) - board.getNeighbourMineCount(index);
+        constraints.add(new CardinalityConstraint(Arrays.copyOf(neighbours, n), mines));
       }
     }
-    return truthTable;
+    return constraints;
   }
 
   public void activateDisplay() {
@@ -334,4 +906,289 @@ public class SatMSAgent extends MSAgent {
   public void deactivateDisplay() {
     this.displayActivated = false;
   }
+
+  /**
+   * Sets the encoding which is used to translate the clue constraints for the
+   * solver (which switches to the sat4j backend).
+   * 
+   * @param encoding the cardinality encoding
+   */
+  public void setCardinalityEncoding(CardinalityEncoding encoding) {
+    this.backend = new Sat4jBackend(encoding);
+  }
+
+  /**
+   * Limits how long the proofs of a single step may take. Once the time is up,
+   * the cells proven so far are uncovered, and if there are none, the agent
+   * guesses.
+   * 
+   * @param millis the time budget of a step (in ms, 0 = unbounded)
+   */
+  public void setStepTimeBudget(long millis) {
+    this.stepTimeBudget = millis * 1000000;
+  }
+
+  /**
+   * Limits how long the proofs of a whole game may take. Once the time is up,
+   * the remaining steps only rely on the rules and guesses.
+   * 
+   * @param millis the time budget of a game (in ms, 0 = unbounded)
+   */
+  public void setGameTimeBudget(long millis) {
+    this.gameTimeBudget = millis * 1000000;
+  }
+
+  /**
+   * From now on, the metrics of every step (problem size, solver work, proven
+   * cells and the duration of every phase) are recorded, see getMetrics().
+   */
+  public void activateMetrics() {
+    this.metrics = new GameMetrics();
+  }
+
+  /**
+   * From now on, no metrics are recorded.
+   */
+  public void deactivateMetrics() {
+    this.metrics = null;
+    this.stepMetrics = null;
+  }
+
+  /**
+   * Returns the metrics of every step of the last game.
+   * 
+   * @return the metrics (null if deactivated)
+   */
+  public GameMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  /**
+   * Sets the backend which provides the solvers the cells are proven with (sat4j
+   * by default).
+   * 
+   * @param backend the solver backend
+   */
+  public void setSolverBackend(SolverBackend backend) {
+    this.backend = backend;
+  }
+
+  /**
+   * Returns how many steps (uncovered cells, not counting the ones uncovered
+   * around a 0) the last game took.
+   * 
+   * @return the amount of steps
+   */
+  public int getSteps() {
+    return this.steps;
+  }
+
+  /**
+   * Returns how many steps of the last game needed the SAT solver.
+   * 
+   * @return the amount of SAT steps
+   */
+  public int getSatSteps() {
+    return this.satSteps;
+  }
+
+  /**
+   * Returns the amount of variables of all knowledge bases of the last game.
+   * 
+   * @return the summed up amount of variables
+   */
+  public long getNumOfVariables() {
+    return this.numOfVariables;
+  }
+
+  /**
+   * Returns the amount of constraints (clauses or native cardinality constraints)
+   * of all knowledge bases of the last game.
+   * 
+   * @return the summed up amount of constraints
+   */
+  public long getNumOfConstraints() {
+    return this.numOfConstraints;
+  }
+
+  /**
+   * From now on, every connected component of the frontier is proven on its own.
+   */
+  public void activateComponentDecomposition() {
+    this.componentDecomposition = true;
+  }
+
+  /**
+   * From now on, the whole frontier is proven as a single formula.
+   */
+  public void deactivateComponentDecomposition() {
+    this.componentDecomposition = false;
+  }
+
+  /**
+   * From now on, one knowledge base is kept over all steps of a game, to which
+   * only the newly uncovered clues and proven cells are added. Components,
+   * incremental solving and parallel proving don't apply to this single
+   * knowledge base, so they are ignored while it is activated. Takes effect
+   * with the next call of solve().
+   */
+  public void activatePersistentKnowledge() {
+    if (executor != null) {
+      System.out.println("Error: The persistent knowledge base is proven sequentially, parallel proving is ignored!");
+    }
+    this.persistentKnowledge = true;
+  }
+
+  /**
+   * From now on, the knowledge base is generated from scratch for every step
+   * (the default). Takes effect with the next call of solve().
+   */
+  public void deactivatePersistentKnowledge() {
+    this.persistentKnowledge = false;
+  }
+
+  /**
+   * From now on, the cells are proven in parallel on the common ForkJoinPool.
+   */
+  public void activateParallelProving() {
+    activateParallelProving(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+  }
+
+  /**
+   * From now on, the cells are proven in parallel on the given executor. Every
+   * task sets up its own solver (always proving incrementally), so parallelism
+   * should roughly match the threads of the executor. The persistent knowledge
+   * base is always proven sequentially, so the cells are only proven in
+   * parallel while it is deactivated.
+   * 
+   * @param executor    the executor the proofs are run on
+   * @param parallelism in how many tasks the cells of a component are split at
+   *                    most
+   */
+  public void activateParallelProving(ExecutorService executor, int parallelism) {
+    if (persistentKnowledge) {
+      System.out.println("Error: The persistent knowledge base is proven sequentially, parallel proving is ignored!");
+    }
+    this.executor = executor;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * From now on, the cells are proven sequentially.
+   */
+  public void deactivateParallelProving() {
+    this.executor = null;
+    this.parallelism = 1;
+  }
+
+  /**
+   * Returns how many times the solver was called in the last game.
+   * 
+   * @return the amount of solver calls
+   */
+  public long getNumOfSatCalls() {
+    return this.numOfSatCalls;
+  }
+
+  /**
+   * From now on, the whole region around an uncovered 0 is uncovered at once.
+   */
+  public void activateZeroCascade() {
+    this.zeroCascade = true;
+  }
+
+  /**
+   * From now on, the neighbours of an uncovered 0 are found like any other safe
+   * cells.
+   */
+  public void deactivateZeroCascade() {
+    this.zeroCascade = false;
+  }
+
+  /**
+   * From now on, simple local rules are applied before the SAT solver, which is
+   * only used if the rules can't find any safe cell.
+   */
+  public void activateRuleDeduction() {
+    this.ruleDeduction = new RuleDeduction(cells);
+  }
+
+  /**
+   * From now on, every step is decided by the SAT solver alone.
+   */
+  public void deactivateRuleDeduction() {
+    this.ruleDeduction = null;
+  }
+
+  /**
+   * From now on, every relevant cell of a huge frontier is first proven against
+   * the clue cells in a window around it, which keeps the SAT steps fast. Only if
+   * no safe cell is found that way, the cells are proven against all clues.
+   */
+  public void activateWindowedProving() {
+    this.windowedProver = new WindowedProver(cells);
+  }
+
+  /**
+   * From now on, the cells are only proven against all clues.
+   */
+  public void deactivateWindowedProving() {
+    this.windowedProver = null;
+  }
+
+  /**
+   * From now on, a guess picks the cell which is least likely a mine, as counted
+   * over the models of every frontier component.
+   */
+  public void activateProbabilisticGuessing() {
+    this.mineProbabilities = new MineProbabilities(cells);
+  }
+
+  /**
+   * From now on, a guess picks a random cell which isn't marked as a mine.
+   */
+  public void deactivateProbabilisticGuessing() {
+    this.mineProbabilities = null;
+  }
+
+  /**
+   * Tells the agent how many mines the field has in total (like the counter of
+   * the original game), which lets the probabilistic guesses weigh the covered
+   * cells off the frontier as well. The games don't reveal it themselves, so
+   * the agent plays the same on every oracle.
+   * 
+   * @param numOfMines the number of mines (-1 = unknown, the default)
+   */
+  public void setNumOfMines(long numOfMines) {
+    this.numOfMines = numOfMines;
+  }
+
+  /**
+   * From now on, proofs which are already refuted by a model found earlier in
+   * the step are skipped.
+   */
+  public void activateWitnessPruning() {
+    this.witnessPruning = true;
+  }
+
+  /**
+   * From now on, both proofs are run for every cell.
+   */
+  public void deactivateWitnessPruning() {
+    this.witnessPruning = false;
+  }
+
+  /**
+   * From now on, all cells of a step are proven with one solver via assumptions.
+   */
+  public void activateIncrementalSolving() {
+    this.incrementalSolving = true;
+  }
+
+  /**
+   * From now on, a new solver is set up for every single indirect proof.
+   */
+  public void deactivateIncrementalSolving() {
+    this.incrementalSolving = false;
+  }
 }
@@ -0,0 +1,82 @@
+package api;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+
+/**
+ * Encodes a cardinality constraint via a sequential counter (Sinz, 2005). An
+ * "exactly k" constraint is split into "at most k" of the variables and "at
+ * most n-k" of the negated variables, each of which needs O(n*k) auxiliary
+ * variables and clauses.
+ * 
+ * @author tthielen
+ */
+public class SequentialCounterEncoding implements CardinalityEncoding {
+
+  @Override
+  public void addExactly(ISolver solver, int[] variables, int k) throws ContradictionException {
+    int n = variables.length;
+    if (k < 0 || k > n) {
+      // no assignment can satisfy the constraint
+      solver.addClause(new VecInt());
+    }
+    int[] negated = new int[n];
+    for (int i = 0; i < n; i++) {
+      negated[i] = -variables[i];
+    }
+    addAtMost(solver, variables, k);
+    addAtMost(solver, negated, n - k);
+  }
+
+  /**
+   * Adds the constraint that at most k of the given literals are true.
+   * 
+   * @param solver   the solver the constraint is added to
+   * @param literals the literals of the constraint
+   * @param k        how many of the literals may be true
+   * @throws ContradictionException if the solver detects a trivial
+   *                                contradiction
+   */
+  private void addAtMost(ISolver solver, int[] literals, int k) throws ContradictionException {
+    int n = literals.length;
+    if (k >= n) {
+      // the constraint is always satisfied
+      return;
+    }
+    if (k == 0) {
+      for (int l : literals) {
+        solver.addClause(new VecInt(new int[] { -l }));
+      }
+      return;
+    }
+
+    // s[i][j] is true if at least j+1 of the literals 0..i are true
+    int[][] s = new int[n - 1][k];
+    for (int i = 0; i < n - 1; i++) {
+      for (int j = 0; j < k; j++) {
+        s[i][j] = solver.nextFreeVarId(true);
+      }
+    }
+
+    solver.addClause(new VecInt(new int[] { -literals[0], s[0][0] }));
+    for (int j = 1; j < k; j++) {
+      solver.addClause(new VecInt(new int[] { -s[0][j] }));
+    }
+    for (int i = 1; i < n - 1; i++) {
+      solver.addClause(new VecInt(new int[] { -literals[i], s[i][0] }));
+      solver.addClause(new VecInt(new int[] { -s[i - 1][0], s[i][0] }));
+      for (int j = 1; j < k; j++) {
+        solver.addClause(new VecInt(new int[] { -literals[i], -s[i - 1][j - 1], s[i][j] }));
+        solver.addClause(new VecInt(new int[] { -s[i - 1][j], s[i][j] }));
+      }
+      solver.addClause(new VecInt(new int[] { -literals[i], -s[i - 1][k - 1] }));
+    }
+    solver.addClause(new VecInt(new int[] { -literals[n - 1], -s[n - 2][k - 1] }));
+  }
+
+  @Override
+  public String getName() {
+    return "sequential counter";
+  }
+}
@@ -0,0 +1,26 @@
+package api;
+
+/**
+ * A strategy which provides the solvers the agent proves its cells with, e.g.
+ * sat4j (via a cardinality encoding) or the native propagation engine.
+ * 
+ * @author tthielen
+ */
+public interface SolverBackend {
+
+  /**
+   * Creates a new (empty) solver.
+   * 
+   * @param numOfVariables the amount of variables (1 to numOfVariables) the
+   *                       constraints may use
+   * @return the solver
+   */
+  public ConstraintSolver newSolver(int numOfVariables);
+
+  /**
+   * Returns the name of the backend.
+   * 
+   * @return the name of the backend
+   */
+  public String getName();
+}
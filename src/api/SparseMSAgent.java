@@ -0,0 +1,363 @@
+package api;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * An agent for huge boards, which only keeps the explored part of the field
+ * (in a ChunkedBoard) and decides every step locally: whenever a cell changes,
+ * the clue cells around it are checked again by the rules of the
+ * RuleDeduction (a single clue cell, and pairs of clue cells at most two cells
+ * apart). So neither the memory nor the duration of a step depends on the size
+ * of the board.
+ * 
+ * Should the rules find no safe cell, a random relevant cell is uncovered. As
+ * huge boards can't be solved in reasonable time, the amount of steps can be
+ * limited.
+ * 
+ * @author tthielen
+ */
+public class SparseMSAgent extends MSAgent {
+
+  private boolean displayActivated = false;
+  private boolean firstDecision = true; // used to force the agent to pick (0,0) on his first step
+  private long maxSteps = Long.MAX_VALUE; // after how many steps the agent gives up
+
+  private MSGame game; // the game which is played
+  private ChunkedBoard board; // the explored part of the field
+  private Random random; // used for all random decisions (seeded for reproducible games)
+
+  private ArrayDeque<Long> safeCells = new ArrayDeque<Long>(); // the deduced safe cells (not yet uncovered)
+  private ArrayDeque<Long> dirty = new ArrayDeque<Long>(); // the clue cells which need to be checked again
+  private HashSet<Long> dirtySet = new HashSet<Long>(); // the same clue cells (to avoid duplicates)
+
+  private long steps = 0; // how many steps the last game took
+  private long guesses = 0; // how many steps of the last game were random
+
+  private long[] unknownsA = new long[8]; // buffers for the unknown neighbours of two clue cells
+  private long[] unknownsB = new long[8];
+
+  /**
+   * Constructor: Plays the given game and uses the given random int generator
+   * for all random decisions.
+   * 
+   * @param game   the game
+   * @param random the random int generator
+   */
+  public SparseMSAgent(MSGame game, Random random) {
+    super(game instanceof MSFieldGame ? ((MSFieldGame) game).getField() : null);
+    this.game = game;
+    this.random = random;
+    this.board = new ChunkedBoard(game.getNumOfCols(), game.getNumOfRows());
+  }
+
+  /**
+   * Solves the given game (or gives up after the maximum amount of steps).
+   */
+  @Override
+  public boolean solve() {
+    int x, y, feedback;
+    do {
+      steps++;
+      if (firstDecision) {
+        x = 0;
+        y = 0;
+        firstDecision = false;
+      } else {
+        long cell = nextSafeCell();
+        if (cell < 0) {
+          guesses++;
+          cell = randomCell();
+          if (displayActivated) {
+            System.out.println("There aren't any safe cells, guessing");
+          }
+        }
+        x = ChunkedBoard.getX(cell);
+        y = ChunkedBoard.getY(cell);
+      }
+
+      if (displayActivated) {
+        System.out.println("Uncovering (" + x + "," + y + ")");
+      }
+      feedback = uncover(x, y);
+      if (feedback == 0) {
+        // all neighbours of a 0 are safe, so the whole empty region is uncovered at once
+        uncoverZeroRegion(x, y);
+      }
+    } while (feedback >= 0 && !game.solved() && steps < maxSteps);
+
+    if (displayActivated) {
+      System.out.println(game);
+    }
+    if (game.solved()) {
+      if (displayActivated) {
+        System.out.println("\nSolved the field");
+      }
+      return true;
+    } else {
+      if (displayActivated) {
+        System.out.println(feedback < 0 ? "\nBOOM! because of (" + x + "," + y + ")" : "\nGave up");
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Uncovers the given cell and marks the clue cells around it as dirty.
+   * 
+   * @param x the x-coordinate of the cell
+   * @param y the y-coordinate of the cell
+   * @return the clue of the cell or -1 if it's a mine
+   */
+  private int uncover(int x, int y) {
+    int feedback = game.uncover(x, y);
+    if (feedback >= 0) {
+      board.uncover(x, y, feedback);
+      markDirty(x, y);
+    }
+    return feedback;
+  }
+
+  /**
+   * Uncovers the whole region around the 0 at the given coordinates.
+   * 
+   * @param x the x-coordinate of the 0
+   * @param y the y-coordinate of the 0
+   */
+  private void uncoverZeroRegion(int x, int y) {
+    ArrayDeque<Long> zeros = new ArrayDeque<Long>();
+    zeros.add(ChunkedBoard.key(x, y));
+    while (!zeros.isEmpty()) {
+      long zero = zeros.poll();
+      int zx = ChunkedBoard.getX(zero);
+      int zy = ChunkedBoard.getY(zero);
+      for (int j = Math.max(0, zy - 1); j <= Math.min(board.getNumOfRows() - 1, zy + 1); j++) {
+        for (int i = Math.max(0, zx - 1); i <= Math.min(board.getNumOfCols() - 1, zx + 1); i++) {
+          if (!board.isUncovered(i, j) && uncover(i, j) == 0) {
+            zeros.add(ChunkedBoard.key(i, j));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Marks the given cell as a mine and the clue cells around it as dirty.
+   * 
+   * @param key the key of the cell
+   */
+  private void markMine(long key) {
+    int x = ChunkedBoard.getX(key);
+    int y = ChunkedBoard.getY(key);
+    board.markMine(x, y);
+    markDirty(x, y);
+  }
+
+  /**
+   * Marks the given cell and all cells around it which are clue cells as dirty,
+   * as something changed around them.
+   * 
+   * @param x the x-coordinate of the changed cell
+   * @param y the y-coordinate of the changed cell
+   */
+  private void markDirty(int x, int y) {
+    for (int j = Math.max(0, y - 1); j <= Math.min(board.getNumOfRows() - 1, y + 1); j++) {
+      for (int i = Math.max(0, x - 1); i <= Math.min(board.getNumOfCols() - 1, x + 1); i++) {
+        long key = ChunkedBoard.key(i, j);
+        if (board.getClueCells().contains(key) && dirtySet.add(key)) {
+          dirty.add(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the next safe cell, checking the dirty clue cells until one is
+   * found.
+   * 
+   * @return the key of the safe cell or -1 if there is none
+   */
+  private long nextSafeCell() {
+    while (true) {
+      while (!safeCells.isEmpty()) {
+        long cell = safeCells.poll();
+        if (!board.isUncovered(ChunkedBoard.getX(cell), ChunkedBoard.getY(cell))) {
+          return cell;
+        }
+      }
+      if (dirty.isEmpty()) {
+        return -1;
+      }
+      long clueCell = dirty.poll();
+      dirtySet.remove(clueCell);
+      check(clueCell);
+    }
+  }
+
+  /**
+   * Applies the rules to the given clue cell and all clue cells at most two
+   * cells apart from it.
+   * 
+   * @param clueCell the key of the clue cell
+   */
+  private void check(long clueCell) {
+    int x = ChunkedBoard.getX(clueCell);
+    int y = ChunkedBoard.getY(clueCell);
+    int clue = board.getClue(x, y);
+    if (clue < 0) {
+      return;
+    }
+    int n = board.getCoveredNeighboursNotMines(x, y, unknownsA);
+    if (n == 0) {
+      return;
+    }
+    int remaining = clue - board.getNeighbourMineCount(x, y);
+    if (remaining == 0) {
+      for (int k = 0; k < n; k++) {
+        safeCells.add(unknownsA[k]);
+      }
+      return;
+    } else if (remaining == n) {
+      for (int k = 0; k < n; k++) {
+        markMine(unknownsA[k]);
+      }
+      return;
+    }
+
+    // subset rule with the clue cells around
+    for (int j = Math.max(0, y - 2); j <= Math.min(board.getNumOfRows() - 1, y + 2); j++) {
+      for (int i = Math.max(0, x - 2); i <= Math.min(board.getNumOfCols() - 1, x + 2); i++) {
+        int clueB = board.getClue(i, j);
+        if ((i == x && j == y) || clueB < 0) {
+          continue;
+        }
+        int m = board.getCoveredNeighboursNotMines(i, j, unknownsB);
+        if (m == 0) {
+          continue;
+        }
+        int remainingB = clueB - board.getNeighbourMineCount(i, j);
+        // the scan goes on after a deduction, since it wouldn't make this clue
+        // cell dirty again. If A is within B, the deduced cells are B's own
+        // unknowns and A's stay the same. If B is within A, they are A's own
+        // unknowns: unknownsA and remaining get stale (a cell may be deduced
+        // twice), but they still hold, so every further deduction stays sound
+        applySubsetRule(unknownsA, n, remaining, unknownsB, m, remainingB);
+        applySubsetRule(unknownsB, m, remainingB, unknownsA, n, remaining);
+      }
+    }
+  }
+
+  /**
+   * If the unknown neighbours of clue cell A are a subset of the ones of clue
+   * cell B, the difference contains exactly the difference of their remaining
+   * mines, which decides it if that's 0 or all of them.
+   * 
+   * @param a          the unknown neighbours of A
+   * @param n          how many unknown neighbours A has
+   * @param remainingA how many of A's unknown neighbours are mines
+   * @param b          the unknown neighbours of B
+   * @param m          how many unknown neighbours B has
+   * @param remainingB how many of B's unknown neighbours are mines
+   */
+  private void applySubsetRule(long[] a, int n, int remainingA, long[] b, int m, int remainingB) {
+    if (n >= m) {
+      return;
+    }
+    for (int k = 0; k < n; k++) {
+      boolean found = false;
+      for (int l = 0; l < m && !found; l++) {
+        found = a[k] == b[l];
+      }
+      if (!found) {
+        return;
+      }
+    }
+    int mines = remainingB - remainingA;
+    if (mines != 0 && mines != m - n) {
+      return;
+    }
+    long[] difference = new long[m - n];
+    int d = 0;
+    for (int l = 0; l < m; l++) {
+      boolean found = false;
+      for (int k = 0; k < n && !found; k++) {
+        found = a[k] == b[l];
+      }
+      if (!found) {
+        difference[d++] = b[l];
+      }
+    }
+    for (long cell : difference) {
+      if (mines == 0) {
+        safeCells.add(cell);
+      } else {
+        markMine(cell);
+      }
+    }
+  }
+
+  /**
+   * Chooses a random relevant cell (or a random covered cell if there is no
+   * relevant one).
+   * 
+   * @return the key of the cell
+   */
+  private long randomCell() {
+    KeySet relevantCells = board.getRelevantCells();
+    if (relevantCells.size() > 0) {
+      return relevantCells.get(random.nextInt(relevantCells.size()));
+    }
+    while (true) {
+      int x = random.nextInt(board.getNumOfCols());
+      int y = random.nextInt(board.getNumOfRows());
+      if (!board.isUncovered(x, y) && !board.isMine(x, y)) {
+        return ChunkedBoard.key(x, y);
+      }
+    }
+  }
+
+  /**
+   * Sets after how many steps the agent gives up.
+   * 
+   * @param maxSteps the maximum amount of steps
+   */
+  public void setMaxSteps(long maxSteps) {
+    this.maxSteps = maxSteps;
+  }
+
+  /**
+   * Returns how many steps the last game took.
+   * 
+   * @return the amount of steps
+   */
+  public long getSteps() {
+    return this.steps;
+  }
+
+  /**
+   * Returns how many steps of the last game were random.
+   * 
+   * @return the amount of guesses
+   */
+  public long getGuesses() {
+    return this.guesses;
+  }
+
+  /**
+   * Returns the explored part of the field.
+   * 
+   * @return the board
+   */
+  public ChunkedBoard getBoard() {
+    return this.board;
+  }
+
+  public void activateDisplay() {
+    this.displayActivated = true;
+  }
+
+  public void deactivateDisplay() {
+    this.displayActivated = false;
+  }
+}
@@ -0,0 +1,95 @@
+package api;
+
+/**
+ * The metrics of a single step of the SatMSAgent: how large the problem was,
+ * how much work the solvers did, what was proven and how long every phase of
+ * the step took. Every metric is a column, so the steps can be exported as a
+ * table (see GameMetrics).
+ * 
+ * @author tthielen
+ */
+public class StepMetrics {
+
+  public static final int STEP = 0; // the number of the step (starting at 1)
+  public static final int FRONTIER = 1; // the relevant cells at the start of the step
+  public static final int VARIABLES = 2; // the variables of all loaded knowledge bases
+  public static final int CONSTRAINTS = 3; // the constraints (resp. clauses) of all loaded knowledge bases
+  public static final int SAT_CALLS = 4; // how many times a solver was called
+  public static final int CONFLICTS = 5; // the conflicts the solvers ran into
+  public static final int PROPAGATIONS = 6; // the assignments the solvers propagated
+  public static final int SAFE_CELLS = 7; // the cells proven (or deduced) to be safe
+  public static final int MINES = 8; // the cells proven (or deduced) to be mines
+  public static final int GUESS = 9; // 1 if the agent had to guess
+  public static final int TIMEOUT = 10; // 1 if the deadline passed before all cells were proven
+  public static final int RULE_NANOS = 11; // the duration of the rule deduction
+  public static final int PROOF_NANOS = 12; // the duration of the proofs
+  public static final int GUESS_NANOS = 13; // the duration of choosing a guess
+  public static final int UNCOVER_NANOS = 14; // the duration of uncovering the cell (and the region around a 0)
+  public static final int STEP_NANOS = 15; // the duration of the whole step
+
+  public static final String[] COLUMNS = { "step", "frontier", "variables", "constraints", "satCalls", "conflicts",
+      "propagations", "safeCells", "mines", "guess", "timeout", "ruleNanos", "proofNanos", "guessNanos", "uncoverNanos",
+      "stepNanos" };
+
+  private long[] values = new long[COLUMNS.length];
+
+  /**
+   * Constructor for the metrics of a step (all other metrics start at 0).
+   * 
+   * @param step the number of the step
+   */
+  public StepMetrics(int step) {
+    values[STEP] = step;
+  }
+
+  /**
+   * Adds the given amount to a metric.
+   * 
+   * @param metric the metric (one of the constants above)
+   * @param amount the amount
+   */
+  public void add(int metric, long amount) {
+    values[metric] += amount;
+  }
+
+  public void set(int metric, long value) {
+    values[metric] = value;
+  }
+
+  public long get(int metric) {
+    return values[metric];
+  }
+
+  /**
+   * Returns the metrics as a line of comma separated values (in the order of
+   * COLUMNS).
+   * 
+   * @return the line
+   */
+  public String toCsv() {
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      line.append(values[i]);
+    }
+    return line.toString();
+  }
+
+  /**
+   * Returns the metrics as a JSON object (on a single line).
+   * 
+   * @return the JSON object
+   */
+  public String toJson() {
+    StringBuilder line = new StringBuilder("{");
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      line.append('"').append(COLUMNS[i]).append("\":").append(values[i]);
+    }
+    return line.append('}').toString();
+  }
+}
@@ -0,0 +1,80 @@
+package api;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+
+/**
+ * Encodes a cardinality constraint via its truth table: every assignment of the
+ * variables which is not a model of the constraint is excluded by one clause.
+ * This results in up to 2^n clauses of length n.
+ * 
+ * @author tthielen
+ */
+public class TruthTableEncoding implements CardinalityEncoding {
+
+  @Override
+  public void addExactly(ISolver solver, int[] variables, int k) throws ContradictionException {
+    int n = variables.length;
+
+    boolean[][] truthTable = generateTruthTable(n); // Generate a table with number of rows = 2^n
+
+    for (boolean[] truthRow : truthTable) {
+      // Check if the condition is not reached (= 0 in truth table)
+      int trueCount = 0;
+      for (boolean b : truthRow) {
+        if (b) {
+          trueCount++;
+        }
+      }
+      // For every truthRow which is not a propositional model for our cell
+      if (trueCount != k) {
+        // Create a CNF clause with the respective indices as variables and add it to
+        // the solver
+        int[] clause = new int[n];
+        for (int i = 0; i < truthRow.length; i++) {
+          clause[i] = truthRow[i] ? -variables[i] : variables[i];
+        }
+        solver.addClause(new VecInt(clause));
+      }
+    }
+  }
+
+  /**
+   * Generates a truth table according to the amount of neighbours the clue cell
+   * has.
+   * 
+   * @param n the amount of neighbours of the clue cell
+   * @return a truth table of all possible mine placements (disregarding the clue
+   *         itself)
+   */
+  private boolean[][] generateTruthTable(int n) {
+    boolean[][] truthTable = new boolean[(int) Math.pow(2.0, n)][n];
+    boolean[] truthRow = new boolean[n];
+
+    for (int i = 0; i < n; i++) {
+      truthRow[i] = false;
+    }
+    int x = 1;
+    for (int i = 0; i < n; i++) {
+      if (truthRow[i]) {
+        truthRow[i] = false;
+      } else {
+        truthRow[i] = true;
+        i = -1;
+        truthTable[x] = new boolean[n];
+        for (int j = 0; j < n; j++) {
+          truthTable[x][j] = truthRow[j];
+        }
+        x++;
+        continue; // building of new row in truth table complete
+      }
+    }
+    return truthTable;
+  }
+
+  @Override
+  public String getName() {
+    return "truth table";
+  }
+}
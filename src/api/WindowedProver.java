@@ -0,0 +1,264 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * Proves the relevant cells only against the clue cells in a window around
+ * them (all cells at most radius away in both directions), as the state of a
+ * cell almost always only depends on nearby clues. Every window proves all
+ * cells in its core (half its radius around its center), so every cell sees at
+ * least the clues half the radius around it. Cells which are neither safe nor
+ * a mine within their window are proven again in windows of double the radius,
+ * until the maximum radius is reached.
+ * 
+ * The constraints of a window are a subset of all constraints, so whatever is
+ * proven within a window holds for the whole field. The opposite isn't true,
+ * which is why the agent falls back to the full proof if no safe cell is found.
+ * 
+ * @author tthielen
+ */
+public class WindowedProver {
+
+  private static final int MIN_RADIUS = 2; // the radius of the first windows
+  private static final int MAX_RADIUS = 8; // the radius of the largest windows
+
+  private FieldOfCells cells;
+  private CompactBoard board;
+
+  private boolean[] safe; // whether a cell has been proven to be safe (but is still covered)
+  private ArrayList<Cell> safeCells; // the cells proven to be safe
+  private ArrayList<Cell> mines; // the cells proven (and marked) as mines
+  private int satCalls; // how many times the solver was called by the last call of prove()
+  private long conflicts; // how many conflicts the solvers ran into during the last call of prove()
+  private long propagations; // how many assignments the solvers propagated during the last call of prove()
+
+  private int[] pending; // the stamp of the current round for every cell which still needs to be proven
+  private int stamp = 0; // the stamp of the current round
+
+  private int[] variable; // the variable of every cell in the current window (0 if not in the window)
+  private int[] windowCells; // the cells which got a variable in the current window
+  private int numOfWindowCells;
+  private int[] neighbours = new int[8]; // buffer for the neighbours of a clue cell
+
+  /**
+   * Constructor for the prover.
+   * 
+   * @param cells the inner representation of the field of cells
+   */
+  public WindowedProver(FieldOfCells cells) {
+    this.cells = cells;
+    this.board = cells.getBoard();
+    int size = board.size();
+    this.safe = new boolean[size];
+    this.safeCells = new ArrayList<Cell>();
+    this.mines = new ArrayList<Cell>();
+    this.pending = new int[size];
+    this.variable = new int[size];
+    this.windowCells = new int[size];
+  }
+
+  /**
+   * Proves the relevant cells within the windows around them. Proven mines are
+   * marked (and can be retrieved via getMines()). Once the deadline has passed,
+   * the remaining windows are skipped.
+   * 
+   * @param backend  the backend providing the solvers
+   * @param deadline when the proofs have to stop
+   * @return the cells which are proven to be safe
+   */
+  public ArrayList<Cell> prove(SolverBackend backend, Deadline deadline) {
+    for (Cell c : safeCells) {
+      safe[c.getIndex()] = false;
+    }
+    safeCells.clear();
+    mines = new ArrayList<Cell>();
+    satCalls = 0;
+    conflicts = 0;
+    propagations = 0;
+
+    // marking mines changes the relevant cells, so they are copied first
+    IndexSet relevantCells = board.getRelevantCells();
+    int[] candidates = new int[relevantCells.size()];
+    for (int k = 0; k < candidates.length; k++) {
+      candidates[k] = relevantCells.get(k);
+    }
+    Arrays.sort(candidates);
+
+    int numOfCandidates = candidates.length;
+    for (int radius = MIN_RADIUS; radius <= MAX_RADIUS && numOfCandidates > 0; radius *= 2) {
+      stamp++;
+      for (int k = 0; k < numOfCandidates; k++) {
+        pending[candidates[k]] = stamp;
+      }
+      for (int k = 0; k < numOfCandidates; k++) {
+        if (deadline.isExceeded()) {
+          return new ArrayList<Cell>(safeCells);
+        }
+        if (pending[candidates[k]] == stamp) {
+          proveWindow(candidates[k], radius, backend, deadline);
+        }
+      }
+      // only the undecided candidates are proven in the larger windows
+      int undecided = 0;
+      for (int k = 0; k < numOfCandidates; k++) {
+        if (!safe[candidates[k]] && !board.isMine(candidates[k])) {
+          candidates[undecided++] = candidates[k];
+        }
+      }
+      numOfCandidates = undecided;
+    }
+    return new ArrayList<Cell>(safeCells);
+  }
+
+  /**
+   * Proves all pending cells in the core of the window around the given cell
+   * against the clue cells of the window.
+   * 
+   * @param center   the index of the cell the window is centered on
+   * @param radius   the radius of the window
+   * @param backend  the backend providing the solvers
+   * @param deadline when the proofs have to stop
+   */
+  private void proveWindow(int center, int radius, SolverBackend backend, Deadline deadline) {
+    int x = board.getX(center);
+    int y = board.getY(center);
+    int core = radius / 2;
+    // the covered neighbours of the clue cells reach one cell beyond the window
+    int width = 2 * radius + 3;
+    ConstraintSolver solver = backend.newSolver(width * width);
+    solver.setDeadline(deadline);
+    numOfWindowCells = 0;
+    try {
+      for (int j = Math.max(0, y - radius); j <= Math.min(board.getNumOfRows() - 1, y + radius); j++) {
+        for (int i = Math.max(0, x - radius); i <= Math.min(board.getNumOfCols() - 1, x + radius); i++) {
+          int clueCell = i + j * board.getNumOfCols();
+          if (!board.isClueCell(clueCell)) {
+            continue;
+          }
+          int n = board.getCoveredNeighboursNotMines(clueCell, neighbours);
+          if (n == 0) {
+            continue;
+          }
+          int[] literals = new int[n];
+          for (int k = 0; k < n; k++) {
+            literals[k] = variableOf(neighbours[k], solver);
+          }
+          solver.addExactly(literals, board.getClue(clueCell) - board.getNeighbourMineCount(clueCell));
+        }
+      }
+
+      WitnessModels witnesses = new WitnessModels(solver.getNumOfVariables());
+      satCalls++;
+      if (solver.isSatisfiable()) {
+        witnesses.add(solver.model());
+      }
+      for (int j = Math.max(0, y - core); j <= Math.min(board.getNumOfRows() - 1, y + core); j++) {
+        for (int i = Math.max(0, x - core); i <= Math.min(board.getNumOfCols() - 1, x + core); i++) {
+          int index = i + j * board.getNumOfCols();
+          if (pending[index] != stamp || variable[index] == 0) {
+            continue;
+          }
+          pending[index] = 0;
+          int v = variable[index];
+          // We perform a proof by contradiction (unless a known model refutes it)
+          if (!witnesses.canBeMine(v)) {
+            satCalls++;
+            if (!solver.isSatisfiable(v)) {
+              safe[index] = true;
+              safeCells.add(cells.getCell(index));
+              solver.addFact(-v);
+              continue;
+            }
+            witnesses.add(solver.model());
+          }
+          if (!witnesses.canBeSafe(v)) {
+            satCalls++;
+            if (!solver.isSatisfiable(-v)) {
+              Cell c = cells.getCell(index);
+              cells.markMine(c);
+              mines.add(c);
+              solver.addFact(v);
+            } else {
+              witnesses.add(solver.model());
+            }
+          }
+        }
+      }
+    } catch (ContradictionException e) {
+      // the clues of the window can't contradict each other, as they describe the
+      // actual field
+      System.out.println("Error: The clues of a window are contradictory!");
+    } catch (TimeoutException e) {
+      // the deadline has passed, the cells proven so far are kept
+    } finally {
+      conflicts += solver.getNumOfConflicts();
+      propagations += solver.getNumOfPropagations();
+      for (int k = 0; k < numOfWindowCells; k++) {
+        variable[windowCells[k]] = 0;
+      }
+    }
+  }
+
+  /**
+   * Returns the variable of the given cell in the current window, declaring it
+   * (and adding what's already proven about it) on its first use.
+   * 
+   * @param index  the index of the cell
+   * @param solver the solver of the window
+   * @return the variable of the cell
+   * @throws ContradictionException if what's already proven is contradictory
+   */
+  private int variableOf(int index, ConstraintSolver solver) throws ContradictionException {
+    if (variable[index] == 0) {
+      int v = numOfWindowCells + 1;
+      variable[index] = v;
+      windowCells[numOfWindowCells++] = index;
+      if (safe[index]) {
+        solver.addFact(-v);
+      }
+    }
+    return variable[index];
+  }
+
+  /**
+   * Returns the mines proven by the last call of prove().
+   * 
+   * @return the proven mines
+   */
+  public ArrayList<Cell> getMines() {
+    return this.mines;
+  }
+
+  /**
+   * Returns how many times the solver was called by the last call of prove().
+   * 
+   * @return the amount of SAT calls
+   */
+  public int getSatCalls() {
+    return this.satCalls;
+  }
+
+  /**
+   * Returns how many conflicts the solvers ran into during the last call of
+   * prove().
+   * 
+   * @return the amount of conflicts
+   */
+  public long getConflicts() {
+    return this.conflicts;
+  }
+
+  /**
+   * Returns how many assignments the solvers propagated during the last call of
+   * prove().
+   * 
+   * @return the amount of propagations
+   */
+  public long getPropagations() {
+    return this.propagations;
+  }
+}
@@ -0,0 +1,68 @@
+package api;
+
+/**
+ * Collects the models found by satisfiable proofs of a step. A model in which a
+ * cell is a mine shows that the cell can't be proven safe, and a model in which
+ * it isn't a mine shows that it can't be proven to be a mine, so the respective
+ * proofs can be skipped.
+ * 
+ * The models are only valid as long as no new clues are added to the knowledge
+ * base (adding proven facts is fine, as those are entailed anyway).
+ * 
+ * @author tthielen
+ */
+public class WitnessModels {
+  private boolean[] mineWitnessed;
+  private boolean[] safeWitnessed;
+
+  /**
+   * Constructor for the (empty) collection of models.
+   * 
+   * @param numOfVariables the highest variable which is tracked
+   */
+  public WitnessModels(int numOfVariables) {
+    this.mineWitnessed = new boolean[numOfVariables + 1];
+    this.safeWitnessed = new boolean[numOfVariables + 1];
+  }
+
+  /**
+   * Adds a model of the knowledge base. Variables above the tracked ones (e.g.
+   * auxiliary variables of the encoding) are ignored.
+   * 
+   * @param model the model as returned by the solver
+   */
+  public void add(int[] model) {
+    for (int literal : model) {
+      int variable = Math.abs(literal);
+      if (variable < mineWitnessed.length) {
+        if (literal > 0) {
+          mineWitnessed[variable] = true;
+        } else {
+          safeWitnessed[variable] = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns whether a model is known in which the variable is true, i.e. the
+   * cell can't be proven safe.
+   * 
+   * @param variable the variable of the cell
+   * @return true, if the cell is a mine in a known model
+   */
+  public boolean canBeMine(int variable) {
+    return mineWitnessed[variable];
+  }
+
+  /**
+   * Returns whether a model is known in which the variable is false, i.e. the
+   * cell can't be proven to be a mine.
+   * 
+   * @param variable the variable of the cell
+   * @return true, if the cell is safe in a known model
+   */
+  public boolean canBeSafe(int variable) {
+    return safeWitnessed[variable];
+  }
+}